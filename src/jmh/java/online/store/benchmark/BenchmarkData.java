@@ -0,0 +1,114 @@
+package online.store.benchmark;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.LongStream;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import online.store.entity.Category;
+import online.store.entity.Product;
+import online.store.entity.User;
+
+// Builds the products used by the benchmarks, both in memory and as rows in the embedded H2 database
+final class BenchmarkData {
+
+    static final int USERS_PER_PRODUCT = 5; // Fan-out of the seeded product -> user relationship
+    static final int CATEGORIES_PER_PRODUCT = 3; // Fan-out of the seeded product -> category relationship
+    static final int CATEGORY_COUNT = 50; // Number of distinct seeded categories
+
+    private BenchmarkData() {
+    }
+
+    // Spring properties that point the application at a private in-memory H2 database
+    static Map<String, Object> h2Properties(String databaseName) {
+        return Map.of(
+                "spring.datasource.url", "jdbc:h2:mem:" + databaseName + ";DB_CLOSE_DELAY=-1;NON_KEYWORDS=USER",
+                "spring.datasource.username", "sa",
+                "spring.datasource.password", "",
+                "spring.jpa.hibernate.ddl-auto", "create-drop",
+                "spring.flyway.enabled", "false",
+                "spring.jpa.show-sql", "false",
+                "spring.cache.type", "none",
+                "spring.jpa.properties.hibernate.search.backend.directory.type", "local-heap",
+                "logging.level.root", "warn");
+    }
+
+    // A detached product with the given number of users and categories, as the mapping code sees it
+    static Product product(long productId, int fanOut) {
+        Product product = new Product();
+        product.setProductId(productId);
+        product.setProductName("Product " + productId);
+        product.setProductDescription("Description of product " + productId + " used by the benchmarks");
+        product.setProductPrice(1000 + productId % 500);
+        product.setProductQuantity(100 + productId % 50);
+
+        for (long i = 0; i < fanOut; i++) {
+            User user = new User();
+            user.setUserId(productId * 1000 + i);
+            user.setUserEmail("user" + i + "@example.com");
+            user.setUserFirstName("First" + i);
+            user.setUserLastName("Last" + i);
+            user.setUserAddress(i + " Main Street");
+            user.setProduct(product);
+            product.getUsers().add(user);
+
+            Category category = new Category();
+            category.setCategoryId(i);
+            category.setCategoryName("Category " + i);
+            product.getCategories().add(category);
+        }
+
+        return product;
+    }
+
+    // Inserts productCount products with their users and category links using plain JDBC batches
+    static void seed(JdbcTemplate jdbcTemplate, int productCount) {
+        jdbcTemplate.batchUpdate("insert into category (category_id, category_name) values (?, ?)",
+                range(1, CATEGORY_COUNT), CATEGORY_COUNT,
+                (ps, categoryId) -> {
+                    ps.setLong(1, categoryId);
+                    ps.setString(2, "Category " + categoryId);
+                });
+
+        jdbcTemplate.batchUpdate("insert into product (product_id, product_name, product_description,"
+                + " product_price, product_quantity, product_version) values (?, ?, ?, ?, ?, 0)",
+                range(1, productCount), 1000,
+                (ps, productId) -> {
+                    ps.setLong(1, productId);
+                    ps.setString(2, "Product " + productId);
+                    ps.setString(3, "Description of product " + productId + " used by the benchmarks");
+                    ps.setLong(4, 1000 + productId % 500);
+                    ps.setLong(5, 100 + productId % 50);
+                });
+
+        jdbcTemplate.batchUpdate("insert into user (user_id, user_email, user_first_name, user_last_name,"
+                + " user_address, product_id) values (?, ?, ?, ?, ?, ?)",
+                range(1, (long) productCount * USERS_PER_PRODUCT), 1000,
+                (ps, userId) -> {
+                    ps.setLong(1, userId);
+                    ps.setString(2, "user" + userId + "@example.com");
+                    ps.setString(3, "First" + userId);
+                    ps.setString(4, "Last" + userId);
+                    ps.setString(5, userId + " Main Street");
+                    ps.setLong(6, (userId - 1) / USERS_PER_PRODUCT + 1);
+                });
+
+        jdbcTemplate.batchUpdate("insert into category_product (product_id, category_id) values (?, ?)",
+                range(0, (long) productCount * CATEGORIES_PER_PRODUCT - 1), 1000,
+                (ps, link) -> {
+                    long productId = link / CATEGORIES_PER_PRODUCT + 1;
+                    ps.setLong(1, productId);
+                    ps.setLong(2, (productId + link % CATEGORIES_PER_PRODUCT) % CATEGORY_COUNT + 1);
+                });
+
+        // Move the generators past the seeded IDs so benchmarks that insert do not collide. The pooled
+        // optimizer treats the sequence value as the top of a 50-ID block, hence the extra headroom.
+        jdbcTemplate.execute("alter sequence product_seq restart with " + (productCount + 100));
+        jdbcTemplate.execute("alter sequence user_seq restart with " + ((long) productCount * USERS_PER_PRODUCT + 100));
+    }
+
+    private static List<Long> range(long from, long to) {
+        return LongStream.rangeClosed(from, to).boxed().toList();
+    }
+}
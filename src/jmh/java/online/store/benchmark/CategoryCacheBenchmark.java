@@ -0,0 +1,94 @@
+package online.store.benchmark;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import jakarta.persistence.EntityManagerFactory;
+import online.store.OnlineStoreApplication;
+import online.store.controller.model.OnlineStoreProductData;
+import online.store.entity.Category;
+import online.store.service.OnlineStoreService;
+
+// Product detail reads with and without the Hibernate second-level cache for categories. The product cache
+// is disabled so every read reaches Hibernate. After each iteration the Hibernate statistics show how many
+// categories and category collections were loaded from the database. With the cache both should drop to 0
+// once every product has been read; compare the printed counts of the two runs to confirm it.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class CategoryCacheBenchmark {
+
+    private static final int PRODUCT_COUNT = 1_000;
+
+    @Param({ "true", "false" })
+    private boolean secondLevelCache;
+
+    private ConfigurableApplicationContext context;
+    private OnlineStoreService onlineStoreService;
+    private Statistics statistics;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Map<String, Object> properties = new HashMap<>(BenchmarkData.h2Properties("category_cache"));
+        properties.put("spring.jpa.properties.hibernate.cache.use_second_level_cache", String.valueOf(secondLevelCache));
+        properties.put("spring.jpa.properties.hibernate.cache.use_query_cache", String.valueOf(secondLevelCache));
+
+        context = new SpringApplicationBuilder(OnlineStoreApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(properties)
+                .run();
+        BenchmarkData.seed(context.getBean(JdbcTemplate.class), PRODUCT_COUNT);
+        onlineStoreService = context.getBean(OnlineStoreService.class);
+        statistics = context.getBean(EntityManagerFactory.class).unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Setup(Level.Iteration)
+    public void clearStatistics() {
+        statistics.clear();
+    }
+
+    @TearDown(Level.Iteration)
+    public void printStatistics() {
+        System.out.println();
+        System.out.println("Categories loaded: " + statistics.getEntityStatistics(Category.class.getName()).getLoadCount()
+                + ", category collections loaded: "
+                + statistics.getCollectionStatistics(Category.class.getPackageName() + ".Product.categories").getLoadCount()
+                + ", second-level cache hits: " + statistics.getSecondLevelCacheHitCount()
+                + ", statements: " + statistics.getPrepareStatementCount());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public OnlineStoreProductData retrieveProductById() {
+        return onlineStoreService.retrieveProductById(ThreadLocalRandom.current().nextLong(1, PRODUCT_COUNT + 1));
+    }
+}
@@ -0,0 +1,130 @@
+package online.store.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import online.store.OnlineStoreApplication;
+import online.store.controller.model.OnlineStoreBulkResult;
+import online.store.controller.model.OnlineStoreProductData;
+import online.store.controller.model.OnlineStoreProductLookup;
+import online.store.controller.model.OnlineStoreProductPage;
+import online.store.service.OnlineStoreService;
+
+// The service read and write paths against an embedded H2 database seeded with productCount products.
+// The product cache is disabled so every read reaches the database.
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class OnlineStoreServiceBenchmark {
+
+    private static final int WRITE_BATCH = 100; // Products written per invocation of the write benchmarks
+    private static final int CART_SIZE = 50; // Products read per invocation of the multi-get benchmarks
+
+    @Param({ "10000", "100000" })
+    private int productCount;
+
+    private ConfigurableApplicationContext context;
+    private OnlineStoreService onlineStoreService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(OnlineStoreApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(BenchmarkData.h2Properties("service"))
+                .run();
+        BenchmarkData.seed(context.getBean(JdbcTemplate.class), productCount);
+        onlineStoreService = context.getBean(OnlineStoreService.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public OnlineStoreProductPage retrieveAllProductsFirstPage() {
+        return onlineStoreService.retrieveAllProducts(null, null);
+    }
+
+    @Benchmark
+    public OnlineStoreProductData retrieveProductById() {
+        return onlineStoreService.retrieveProductById(ThreadLocalRandom.current().nextLong(1, productCount + 1));
+    }
+
+    // Baseline for the multi-get endpoint: one retrieveProductById call (and transaction) per product
+    @Benchmark
+    @OperationsPerInvocation(CART_SIZE)
+    public List<OnlineStoreProductData> retrieveProductsOneByOne() {
+        List<OnlineStoreProductData> products = new ArrayList<>(CART_SIZE);
+        for (Long productId : randomProductIds()) {
+            products.add(onlineStoreService.retrieveProductById(productId));
+        }
+        return products;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CART_SIZE)
+    public List<OnlineStoreProductLookup> retrieveProductsByIds() {
+        return onlineStoreService.retrieveProductsByIds(randomProductIds());
+    }
+
+    // Baseline for the bulk endpoint: one saveOnlineStoreProduct call (and transaction) per product
+    @Benchmark
+    @OperationsPerInvocation(WRITE_BATCH)
+    public void saveProductsOneByOne() {
+        for (OnlineStoreProductData productData : newProducts()) {
+            onlineStoreService.saveOnlineStoreProduct(productData);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(WRITE_BATCH)
+    public List<OnlineStoreBulkResult> saveProductsInBulk() {
+        return onlineStoreService.saveOnlineStoreProducts(newProducts());
+    }
+
+    private List<Long> randomProductIds() {
+        List<Long> productIds = new ArrayList<>(CART_SIZE);
+        for (int i = 0; i < CART_SIZE; i++) {
+            productIds.add(ThreadLocalRandom.current().nextLong(1, productCount + 1));
+        }
+        return productIds;
+    }
+
+    private List<OnlineStoreProductData> newProducts() {
+        List<OnlineStoreProductData> products = new ArrayList<>(WRITE_BATCH);
+        for (int i = 0; i < WRITE_BATCH; i++) {
+            OnlineStoreProductData productData = new OnlineStoreProductData();
+            productData.setProductName("Benchmark product " + i);
+            productData.setProductDescription("Inserted by OnlineStoreServiceBenchmark");
+            productData.setProductPrice(1000L + i);
+            productData.setProductQuantity(10L);
+            products.add(productData);
+        }
+        return products;
+    }
+}
@@ -0,0 +1,51 @@
+package online.store.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import online.store.controller.model.OnlineStoreProductData;
+import online.store.controller.model.OnlineStoreProductSummary;
+import online.store.entity.Product;
+import online.store.mapping.OnlineStoreProductMapper;
+
+// Cost of building the summary and detail DTOs from an entity as the number of users and categories grows
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProductMappingBenchmark {
+
+    @Param({ "0", "10", "100", "1000" })
+    private int fanOut; // Users and categories attached to the product
+
+    private final OnlineStoreProductMapper mapper = new OnlineStoreProductMapper();
+    private Product product;
+
+    @Setup
+    public void setUp() {
+        product = BenchmarkData.product(1L, fanOut);
+    }
+
+    @Benchmark
+    public OnlineStoreProductSummary mapProductSummary() {
+        return mapper.toSummary(product);
+    }
+
+    @Benchmark
+    public OnlineStoreProductData mapProductDetail() {
+        return mapper.toDetail(product);
+    }
+}
@@ -0,0 +1,90 @@
+package online.store.benchmark;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+
+import online.store.controller.converter.ColumnarProductPageHttpMessageConverter;
+import online.store.controller.model.OnlineStoreProductPage;
+import online.store.controller.model.OnlineStoreProductSummary;
+import online.store.mapping.OnlineStoreProductMapper;
+
+/*
+ * Serialization cost of a 10k product page in each negotiable format, with and without gzip.
+ * The score is the time to write the whole page; the size on the wire of each combination is
+ * printed once per trial, since JMH has no per-operation byte counter.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProductPayloadBenchmark {
+
+    private static final int PRODUCT_COUNT = 10_000;
+
+    @Param({ "json", "smile", "columnar" })
+    private String format;
+
+    @Param({ "false", "true" })
+    private boolean gzip; // Whether the body goes through gzip, as with server.compression
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ObjectMapper smileMapper = new ObjectMapper(new SmileFactory());
+    private final ColumnarProductPageHttpMessageConverter columnarConverter =
+            new ColumnarProductPageHttpMessageConverter(objectMapper.getFactory());
+    private final ByteArrayOutputStream buffer = new ByteArrayOutputStream(4 * 1024 * 1024);
+    private OnlineStoreProductPage productPage;
+
+    @Setup
+    public void setUp() throws IOException {
+        OnlineStoreProductMapper mapper = new OnlineStoreProductMapper();
+        List<OnlineStoreProductSummary> products = new ArrayList<>(PRODUCT_COUNT);
+        for (long productId = 1; productId <= PRODUCT_COUNT; productId++) {
+            products.add(mapper.toSummary(BenchmarkData.product(productId, 0)));
+        }
+        productPage = new OnlineStoreProductPage(products, "MTAwMDA");
+
+        System.out.printf("%n%s gzip=%s: %d bytes for %d products%n", format, gzip, serializePage(), PRODUCT_COUNT);
+    }
+
+    @Benchmark
+    public int serializePage() throws IOException {
+        buffer.reset();
+        OutputStream out = gzip ? new GZIPOutputStream(buffer, 8192) : buffer;
+        switch (format) {
+            case "json" -> objectMapper.writeValue(out, productPage);
+            case "smile" -> smileMapper.writeValue(out, productPage);
+            case "columnar" -> {
+                try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out, JsonEncoding.UTF8)) {
+                    columnarConverter.writePage(productPage, generator);
+                }
+            }
+            default -> throw new IllegalArgumentException("Unknown format " + format);
+        }
+        out.close();
+        return buffer.size();
+    }
+}
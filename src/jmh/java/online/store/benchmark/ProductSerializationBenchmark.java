@@ -0,0 +1,65 @@
+package online.store.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import online.store.controller.model.OnlineStoreProductData;
+import online.store.controller.model.OnlineStoreProductPage;
+import online.store.controller.model.OnlineStoreProductSummary;
+import online.store.mapping.OnlineStoreProductMapper;
+
+// Jackson serialization of the product DTOs as the controller returns them
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProductSerializationBenchmark {
+
+    @Param({ "0", "10", "100" })
+    private int fanOut; // Users and categories attached to the detail product
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final OnlineStoreProductMapper mapper = new OnlineStoreProductMapper();
+    private OnlineStoreProductData productDetail;
+    private OnlineStoreProductPage productPage;
+
+    @Setup
+    public void setUp() {
+        productDetail = mapper.toDetail(BenchmarkData.product(1L, fanOut));
+
+        // A full default-sized listing page of summaries
+        List<OnlineStoreProductSummary> products = new ArrayList<>();
+        for (long productId = 1; productId <= 50; productId++) {
+            products.add(mapper.toSummary(BenchmarkData.product(productId, 0)));
+        }
+        productPage = new OnlineStoreProductPage(products, "NTA");
+    }
+
+    @Benchmark
+    public byte[] serializeProductDetail() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(productDetail);
+    }
+
+    @Benchmark
+    public byte[] serializeProductPage() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(productPage);
+    }
+}
@@ -0,0 +1,51 @@
+package online.store.benchmark;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import online.store.ratelimit.TokenBucketRateLimiter;
+
+// Cost of one admission decision under contention, from one hot client up to many distinct ones
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.AverageTime, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(8)
+public class RateLimiterBenchmark {
+
+    @Param({ "1", "1000" })
+    private int clientCount; // Distinct clients the requests are spread over
+
+    private TokenBucketRateLimiter limiter;
+    private String[] clients;
+
+    @Setup
+    public void setUp() {
+        limiter = new TokenBucketRateLimiter(1_000_000, 1_000, 100_000);
+        clients = new String[clientCount];
+        for (int i = 0; i < clientCount; i++) {
+            clients[i] = "client-" + i;
+        }
+    }
+
+    @Benchmark
+    public long tryAcquire() {
+        String client = clients[ThreadLocalRandom.current().nextInt(clients.length)];
+        return limiter.tryAcquire(client, System.nanoTime());
+    }
+}
@@ -0,0 +1,98 @@
+package online.store.benchmark;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import online.store.OnlineStoreApplication;
+
+// The JPA read endpoints against their reactive (R2DBC) counterparts over HTTP, with many concurrent
+// clients. Both paths read the same embedded H2 database; the rate limiter and the product cache are off
+// so every request reaches the database. Compare the throughput and the latency percentiles per api.
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@Threads(256)
+public class ReactiveReadBenchmark {
+
+    private static final int PRODUCT_COUNT = 10_000;
+
+    @Param({ "blocking", "reactive" })
+    private String api; // Which read path serves the requests
+
+    private ConfigurableApplicationContext context;
+    private HttpClient httpClient;
+    private String baseUri;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Map<String, Object> properties = new HashMap<>(BenchmarkData.h2Properties("reactive"));
+        properties.put("server.port", "0");
+        properties.put("online-store.rate-limit.enabled", "false");
+        properties.put("online-store.reactive.enabled", "true");
+        properties.put("online-store.reactive.url", "r2dbc:h2:mem:///reactive?options=DB_CLOSE_DELAY=-1;NON_KEYWORDS=USER");
+        properties.put("online-store.reactive.username", "sa");
+
+        context = new SpringApplicationBuilder(OnlineStoreApplication.class).properties(properties).run();
+        BenchmarkData.seed(context.getBean(JdbcTemplate.class), PRODUCT_COUNT);
+
+        int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+        baseUri = "http://localhost:" + port + (api.equals("reactive") ? "/online_store/reactive" : "/online_store");
+        // The client must not be the bottleneck: one virtual thread per outstanding request
+        httpClient = HttpClient.newBuilder().executor(Executors.newVirtualThreadPerTaskExecutor()).build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public HttpResponse<byte[]> retrieveProductById() throws IOException, InterruptedException {
+        return get("/" + ThreadLocalRandom.current().nextLong(1, PRODUCT_COUNT + 1));
+    }
+
+    @Benchmark
+    public HttpResponse<byte[]> retrieveProductsByCategory() throws IOException, InterruptedException {
+        return get("/category/" + ThreadLocalRandom.current().nextLong(1, BenchmarkData.CATEGORY_COUNT + 1)
+                + "/products");
+    }
+
+    private HttpResponse<byte[]> get(String path) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUri + path)).build();
+        HttpResponse<byte[]> response = httpClient.send(request, HttpResponse.BodyHandlers.ofByteArray());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("GET " + path + " answered " + response.statusCode());
+        }
+        return response;
+    }
+}
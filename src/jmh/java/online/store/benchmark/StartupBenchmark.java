@@ -0,0 +1,82 @@
+package online.store.benchmark;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import online.store.OnlineStoreApplication;
+
+// Cold start of OnlineStoreApplication on an embedded H2 database: the time until the application is
+// ready, and the time until it has also served its first product page over HTTP. Each measurement is a
+// single shot in a fresh JVM, so class loading, interpretation and JIT warm-up are all part of it.
+// To measure the startup build, add e.g. -jvmArgsAppend "-XX:SharedArchiveFile=... -Dspring.aot.enabled=true".
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@Fork(10)
+public class StartupBenchmark {
+
+    @Param({ "ddl-auto", "flyway" })
+    private String schema; // Who creates the schema: Hibernate from the entities, or the Flyway migrations
+
+    @Param({ "default", "deferred" })
+    private String repositoryBootstrap; // spring.data.jpa.repositories.bootstrap-mode
+
+    private ConfigurableApplicationContext context;
+
+    @TearDown(Level.Iteration)
+    public void tearDown() {
+        if (context != null) {
+            context.close();
+        }
+    }
+
+    @Benchmark
+    public ConfigurableApplicationContext startup() {
+        context = start();
+        return context;
+    }
+
+    @Benchmark
+    public HttpResponse<byte[]> startupToFirstRequest() throws IOException, InterruptedException {
+        context = start();
+        int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/online_store/products"))
+                .build();
+        return HttpClient.newHttpClient().send(request, HttpResponse.BodyHandlers.ofByteArray());
+    }
+
+    private ConfigurableApplicationContext start() {
+        Map<String, Object> properties = new HashMap<>(BenchmarkData.h2Properties("startup"));
+        properties.put("server.port", "0");
+        properties.put("spring.data.jpa.repositories.bootstrap-mode", repositoryBootstrap);
+        if (schema.equals("flyway")) {
+            properties.put("spring.flyway.enabled", "true");
+            properties.put("spring.jpa.hibernate.ddl-auto", "none");
+        }
+        return new SpringApplicationBuilder(OnlineStoreApplication.class).properties(properties).run();
+    }
+}
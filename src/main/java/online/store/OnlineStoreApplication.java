@@ -2,8 +2,15 @@ package online.store;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcAutoConfiguration;
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcTransactionManagerAutoConfiguration;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
-@SpringBootApplication //this annotation let spring to know that this is the spring App
+@SpringBootApplication(exclude = { R2dbcAutoConfiguration.class, R2dbcTransactionManagerAutoConfiguration.class })
+//this annotation let spring to know that this is the spring App; R2DBC is set up by ReactiveReadConfig instead
+@EnableCaching //turns on the cache support whose CacheManager backs the product cache (see OnlineStoreCacheService)
+@EnableScheduling //runs the periodic catalog statistics reconciliation (see OnlineStoreStatisticsService)
 
 public class OnlineStoreApplication {
 
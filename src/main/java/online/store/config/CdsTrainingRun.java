@@ -0,0 +1,34 @@
+package online.store.config;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.stereotype.Component;
+
+import lombok.extern.slf4j.Slf4j;
+
+@Component
+@Slf4j
+// Ends a Class Data Sharing training run. With online-store.startup.exit-after-ready the application
+// shuts down as soon as it is ready, and a JVM started with -XX:ArchiveClassesAtExit then writes an
+// archive of every class loaded during startup (see the README). The flag is read at runtime instead
+// of being a bean condition because AOT processing fixes the conditions at build time.
+public class CdsTrainingRun implements ApplicationListener<ApplicationReadyEvent> {
+
+    private final boolean exitAfterReady; // Whether this run only exists to record the CDS archive
+
+    @Autowired
+    public CdsTrainingRun(@Value("${online-store.startup.exit-after-ready:false}") boolean exitAfterReady) {
+        this.exitAfterReady = exitAfterReady;
+    }
+
+    @Override
+    public void onApplicationEvent(ApplicationReadyEvent event) {
+        if (exitAfterReady) {
+            log.info("Startup complete, exiting the training run");
+            System.exit(SpringApplication.exit(event.getApplicationContext()));
+        }
+    }
+}
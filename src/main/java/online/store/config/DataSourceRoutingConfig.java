@@ -0,0 +1,87 @@
+package online.store.config;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.flyway.FlywayDataSource;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import online.store.datasource.ReadWriteRoutingDataSource;
+import online.store.datasource.ReadYourWritesFilter;
+
+@Configuration
+@ConditionalOnProperty(prefix = "online-store.datasource.routing", name = "enabled", havingValue = "true")
+@EnableConfigurationProperties(ReplicaDataSourceProperties.class)
+@Slf4j
+// Read/write splitting: the spring.datasource pool is the primary and takes every read-write
+// transaction, the online-store.datasource.replicas pools serve the read-only transactions.
+public class DataSourceRoutingConfig {
+
+    // The primary pool, configured like Spring Boot's default one (spring.datasource.*, spring.datasource.hikari.*).
+    // Migrations always run here, never through the routing DataSource.
+    @Bean
+    @FlywayDataSource
+    @ConfigurationProperties(prefix = "spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+
+    // Picks the primary or a replica for each connection; closes the replica pools on shutdown
+    @Bean
+    public ReadWriteRoutingDataSource routingDataSource(HikariDataSource primaryDataSource,
+            DataSourceProperties properties, ReplicaDataSourceProperties replicaProperties, MeterRegistry meterRegistry) {
+        List<DataSource> replicas = new ArrayList<>();
+        for (int i = 0; i < replicaProperties.getReplicas().size(); i++) {
+            replicas.add(replicaDataSource(i, replicaProperties.getReplicas().get(i), properties, meterRegistry));
+        }
+        log.info("Routing read-only transactions to {} replica(s)", replicas.size());
+
+        return new ReadWriteRoutingDataSource(primaryDataSource, replicas, replicaProperties.getHealthCheckInterval());
+    }
+
+    // The DataSource JPA and everything else uses; the physical connection is picked on its first use
+    @Bean
+    @Primary
+    public DataSource dataSource(ReadWriteRoutingDataSource routingDataSource) {
+        return new LazyConnectionDataSourceProxy(routingDataSource);
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "online-store.datasource", name = "read-your-writes-window")
+    public FilterRegistrationBean<ReadYourWritesFilter> readYourWritesFilter(ReplicaDataSourceProperties replicaProperties) {
+        FilterRegistrationBean<ReadYourWritesFilter> registration =
+                new FilterRegistrationBean<>(new ReadYourWritesFilter(replicaProperties.getReadYourWritesWindow()));
+        registration.setEnabled(!replicaProperties.getReadYourWritesWindow().isZero());
+        return registration;
+    }
+
+    private HikariDataSource replicaDataSource(int index, ReplicaDataSourceProperties.Replica replica,
+            DataSourceProperties primaryProperties, MeterRegistry meterRegistry) {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setPoolName("replica-" + index);
+        dataSource.setJdbcUrl(replica.getUrl());
+        dataSource.setUsername(replica.getUsername() != null ? replica.getUsername() : primaryProperties.determineUsername());
+        dataSource.setPassword(replica.getPassword() != null ? replica.getPassword() : primaryProperties.determinePassword());
+        dataSource.setMaximumPoolSize(replica.getMaximumPoolSize());
+        dataSource.setReadOnly(true);
+        dataSource.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+        return dataSource;
+    }
+}
@@ -0,0 +1,63 @@
+package online.store.config;
+
+import java.util.List;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import online.store.controller.converter.ColumnarProductPageHttpMessageConverter;
+import online.store.metrics.RequestMetricsInterceptor;
+import online.store.ratelimit.RateLimitInterceptor;
+
+@Configuration
+@EnableConfigurationProperties(RateLimitProperties.class)
+// Registers the application's Spring MVC interceptors and the compact response formats
+public class OnlineStoreWebConfig implements WebMvcConfigurer {
+
+    private final RequestMetricsInterceptor requestMetricsInterceptor;
+    private final ObjectProvider<RateLimitInterceptor> rateLimitInterceptor;
+    private final ObjectMapper objectMapper;
+
+    @Autowired
+    public OnlineStoreWebConfig(RequestMetricsInterceptor requestMetricsInterceptor,
+            ObjectProvider<RateLimitInterceptor> rateLimitInterceptor, ObjectMapper objectMapper) {
+        this.requestMetricsInterceptor = requestMetricsInterceptor;
+        this.rateLimitInterceptor = rateLimitInterceptor;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        // Admission control runs first so rejected requests cost nothing further
+        rateLimitInterceptor.ifAvailable(interceptor ->
+                registry.addInterceptor(interceptor).addPathPatterns("/online_store/**").order(0));
+        registry.addInterceptor(requestMetricsInterceptor).addPathPatterns("/online_store/**").order(1);
+    }
+
+    // Smile (binary JSON) for responses that negotiate it, configured like Spring Boot's JSON ObjectMapper.
+    // A negotiated listing has a weak ETag and Vary: Accept; the product detail, with its strong ETag, is JSON only.
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(
+            Jackson2ObjectMapperBuilder objectMapperBuilder) {
+        return new MappingJackson2SmileHttpMessageConverter(objectMapperBuilder.smile().build());
+    }
+
+    /*
+     * Columnar JSON for product pages, sharing the JsonFactory of the application's ObjectMapper.
+     * It goes last so that plain JSON stays the default when the client accepts any type.
+     */
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        converters.add(new ColumnarProductPageHttpMessageConverter(objectMapper.getFactory()));
+    }
+}
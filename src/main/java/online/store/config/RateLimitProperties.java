@@ -0,0 +1,46 @@
+package online.store.config;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import online.store.ratelimit.EndpointCost;
+
+@Data
+@ConfigurationProperties(prefix = "online-store.rate-limit")
+// Per-client rate limits and load shedding thresholds of the online_store endpoints
+public class RateLimitProperties {
+
+    private boolean enabled = true; // Turns the rate limiting and load shedding interceptor on or off
+    private String clientHeader = "X-Client-Id"; // Header identifying the client behind a trusted proxy
+    private List<String> trustedProxies = new ArrayList<>(); // Remote addresses allowed to set the client header
+    private int maxClients = 100_000; // Buckets kept per cost class; clients beyond it share one bucket
+    private Limit cheap = new Limit(200, 400); // Limit per client on EndpointCost.CHEAP endpoints
+    private Limit standard = new Limit(50, 100); // Limit per client on EndpointCost.STANDARD endpoints
+    private Limit expensive = new Limit(5, 10); // Limit per client on EndpointCost.EXPENSIVE endpoints
+    private int maxInFlight = 200; // Requests in progress above which everything is shed; expensive ones are shed at half
+    private int maxPoolWaiters = 10; // Threads waiting for a database connection above which non-cheap requests are shed
+    private Duration idleBucketEviction = Duration.ofMinutes(1); // How often buckets of idle clients are dropped
+
+    public Limit limitFor(EndpointCost cost) {
+        return switch (cost) {
+            case CHEAP -> cheap;
+            case STANDARD -> standard;
+            case EXPENSIVE -> expensive;
+        };
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Limit {
+
+        private double permitsPerSecond; // Sustained requests per second
+        private int burst; // Requests a client may make at once after being idle
+    }
+}
@@ -0,0 +1,21 @@
+package online.store.config;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Data;
+
+@Data
+@ConfigurationProperties(prefix = "online-store.reactive")
+// Settings of the R2DBC connection pool behind the reactive read path (online-store.reactive.enabled)
+public class ReactiveDataSourceProperties {
+
+    private String url; // R2DBC URL of the database, e.g. r2dbc:mysql://localhost:3306/online_store
+    private String username; // User to connect as, spring.datasource.username when not set
+    private String password; // Password to connect with, spring.datasource.password when not set
+    private Integer initialPoolSize = 10; // Connections opened when the pool starts
+    private Integer maxPoolSize = 50; // Upper bound on the open connections
+    private Duration maxIdleTime = Duration.ofMinutes(30); // How long an unused connection is kept
+    private Integer fetchSize = 1000; // Rows fetched per round trip when streaming the whole catalog
+}
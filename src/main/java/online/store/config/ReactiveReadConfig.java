@@ -0,0 +1,53 @@
+package online.store.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.r2dbc.core.DatabaseClient;
+
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import lombok.extern.slf4j.Slf4j;
+
+@Configuration
+@ConditionalOnProperty(prefix = "online-store.reactive", name = "enabled", havingValue = "true")
+@EnableConfigurationProperties(ReactiveDataSourceProperties.class)
+@Slf4j
+// The R2DBC side of the opt-in reactive read path. It sits next to the JDBC DataSource instead of
+// replacing it: JPA keeps every write, the reactive endpoints only read. Spring Boot's R2DBC
+// auto-configuration is excluded (see OnlineStoreApplication) because its reactive transaction
+// manager would compete with JPA's for @Transactional; the reads here need no transaction.
+public class ReactiveReadConfig {
+
+    @Bean(destroyMethod = "dispose")
+    public ConnectionPool reactiveConnectionPool(ReactiveDataSourceProperties properties,
+            DataSourceProperties dataSourceProperties) {
+        String username = properties.getUsername() != null ? properties.getUsername()
+                : dataSourceProperties.determineUsername();
+        String password = properties.getPassword() != null ? properties.getPassword()
+                : dataSourceProperties.determinePassword();
+
+        ConnectionFactoryOptions.Builder options = ConnectionFactoryOptions.parse(properties.getUrl()).mutate()
+                .option(ConnectionFactoryOptions.USER, username);
+        if (password != null) {
+            options.option(ConnectionFactoryOptions.PASSWORD, password);
+        }
+
+        log.info("Serving the reactive read path from {}", properties.getUrl());
+        return new ConnectionPool(ConnectionPoolConfiguration.builder(ConnectionFactories.get(options.build()))
+                .name("reactive")
+                .initialSize(properties.getInitialPoolSize())
+                .maxSize(properties.getMaxPoolSize())
+                .maxIdleTime(properties.getMaxIdleTime())
+                .build());
+    }
+
+    @Bean
+    public DatabaseClient reactiveDatabaseClient(ConnectionPool reactiveConnectionPool) {
+        return DatabaseClient.create(reactiveConnectionPool);
+    }
+}
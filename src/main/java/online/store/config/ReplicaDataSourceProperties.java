@@ -0,0 +1,28 @@
+package online.store.config;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Data;
+
+@Data
+@ConfigurationProperties(prefix = "online-store.datasource")
+// Settings of the read replicas used when online-store.datasource.routing.enabled is true
+public class ReplicaDataSourceProperties {
+
+    private Duration healthCheckInterval = Duration.ofSeconds(5); // How often each replica is probed
+    private Duration readYourWritesWindow = Duration.ZERO; // How long a client's reads stick to the primary after a write, zero to disable
+    private List<Replica> replicas = new ArrayList<>(); // Connection settings of each replica
+
+    @Data
+    public static class Replica {
+
+        private String url; // JDBC URL of the replica
+        private String username; // User to connect as, the primary's user when not set
+        private String password; // Password to connect with, the primary's password when not set
+        private Integer maximumPoolSize = 10; // Size of the replica's connection pool
+    }
+}
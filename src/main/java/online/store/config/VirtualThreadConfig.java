@@ -0,0 +1,35 @@
+package online.store.config;
+
+import java.util.concurrent.Executors;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+
+import lombok.extern.slf4j.Slf4j;
+
+@Configuration
+@ConditionalOnProperty(prefix = "online-store.threads", name = "virtual", havingValue = "true")
+@Slf4j
+// Opt-in execution mode (online-store.threads.virtual=true, or the virtual-threads profile) that runs
+// request handling, and therefore the blocking JPA calls of OnlineStoreService, on virtual threads.
+// A request blocked on MySQL then parks its virtual thread instead of holding a Tomcat platform thread.
+public class VirtualThreadConfig {
+
+    // Tomcat hands every request to a new virtual thread instead of its bounded worker pool
+    @Bean
+    public TomcatProtocolHandlerCustomizer<?> virtualThreadProtocolHandlerCustomizer() {
+        log.info("Serving requests on virtual threads");
+        return protocolHandler -> protocolHandler.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+    }
+
+    // Async MVC work such as the StreamingResponseBody of the catalog export runs on virtual threads too
+    @Bean(TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME)
+    public AsyncTaskExecutor applicationTaskExecutor() {
+        return new TaskExecutorAdapter(Executors.newVirtualThreadPerTaskExecutor());
+    }
+}
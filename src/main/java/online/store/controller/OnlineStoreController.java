@@ -1,8 +1,15 @@
 package online.store.controller;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
 
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -10,16 +17,56 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.extern.slf4j.Slf4j;
+import online.store.controller.model.OnlineStoreBulkResult;
+import online.store.controller.model.OnlineStoreCacheStats;
+import online.store.controller.model.OnlineStoreCatalogStats;
+import online.store.controller.model.OnlineStoreChangeBatch;
 import online.store.controller.model.OnlineStoreCategory;
+import online.store.controller.model.OnlineStoreCategoryStats;
 import online.store.controller.model.OnlineStoreProductData;
+import online.store.controller.model.OnlineStoreProductLookup;
+import online.store.controller.model.OnlineStoreProductPage;
+import online.store.controller.model.OnlineStoreProductRetirement;
+import online.store.controller.model.OnlineStoreProductStats;
+import online.store.controller.model.OnlineStoreReservation;
+import online.store.controller.model.OnlineStoreRetirementJob;
+import online.store.controller.model.OnlineStoreSearchResult;
+import online.store.service.ChangeEventRelay;
+import online.store.service.IdempotencyService;
+import online.store.service.OnlineStoreCacheService;
+import online.store.service.OnlineStoreInventoryService;
 import online.store.service.OnlineStoreService;
+import online.store.service.OnlineStoreStatisticsService;
+import online.store.service.ProductRetirementService;
+import online.store.service.UserRegistrationService;
 import online.store.controller.model.OnlineStoreUser;
+import online.store.controller.model.OnlineStoreUserRegistration;
+import online.store.datasource.ReplicaRoutingContext;
 import online.store.entity.Product;
+import online.store.ratelimit.EndpointCost;
+import online.store.ratelimit.RateLimited;
 
 @RestController//let Spring know that this class is the Rest Controller
 @RequestMapping("/online_store")//Tells Spring that HTTP request that is mapped on
@@ -31,16 +78,58 @@ public class OnlineStoreController {
 	@Autowired//injecting OnlineService as an instance variable
 	private OnlineStoreService onlineStoreService;
 	
+	@Autowired//injecting the cache service to report product cache statistics
+	private OnlineStoreCacheService onlineStoreCacheService;
+	
+	@Autowired//injecting the inventory service that handles stock reservations
+	private OnlineStoreInventoryService onlineStoreInventoryService;
+	
+	@Autowired//replays the response of a retried request that carries an Idempotency-Key
+	private IdempotencyService idempotencyService;
+	
+	@Autowired//in-memory catalog counters behind the statistics endpoints
+	private OnlineStoreStatisticsService onlineStoreStatisticsService;
+	
+	@Autowired//the asynchronous user registration pipeline, only present when it is enabled
+	private ObjectProvider<UserRegistrationService> userRegistrationService;
+	
+	@Autowired//serves the change event stream to long-polling and SSE consumers
+	private ChangeEventRelay changeEventRelay;
+	
+	@Autowired//runs the bulk delete and archive jobs
+	private ProductRetirementService productRetirementService;
+	
+	@Autowired//Spring's configured ObjectMapper, used to write the NDJSON export
+	private ObjectMapper objectMapper;
+	
 	
 	/*
 	 * The method maps an HTTP POST request to "/online_store".Pass the contents of the request body as a 
 	 * parameter (type OnlineStoreData) to the method. (Use @RequestBody.) The method return a OnlineStoreData object. Log the request. 
 	 * Call a method in the service class (saveOnlineStoreProduct) that will insert or modify the online store data.
+	 * With an Idempotency-Key header, a retry with the same key gets the first response back instead of
+	 * creating another product.
 	 */
 	 @PostMapping("/product")
-	    public OnlineStoreProductData createOnlineStoreProduct(@RequestBody OnlineStoreProductData productData) {
+	    public OnlineStoreProductData createOnlineStoreProduct(@RequestBody OnlineStoreProductData productData,
+	    		@RequestHeader(name = "Idempotency-Key", required = false) String idempotencyKey) {
 	        log.info("Received a request to create an online store product: {}", productData);
-	        return onlineStoreService.saveOnlineStoreProduct(productData);
+	        if (idempotencyKey == null) {
+	            return onlineStoreService.saveOnlineStoreProduct(productData);
+	        }
+	        return idempotencyService.execute("POST /product", idempotencyKey, productData, OnlineStoreProductData.class,
+	                () -> onlineStoreService.saveOnlineStoreProduct(productData));
+	    }
+	 
+	 /*
+	  * Creates or updates many products in one request. Items with a product ID update that
+	  * product, items without one create a new product. Returns one result per item, in request order.
+	  */
+	 @PostMapping("/products/bulk")
+	 @RateLimited(EndpointCost.EXPENSIVE)
+	    public List<OnlineStoreBulkResult> saveOnlineStoreProducts(@RequestBody List<OnlineStoreProductData> productData) {
+	        log.info("Received a request to bulk save {} online store products", productData.size());
+	        return onlineStoreService.saveOnlineStoreProducts(productData);
 	    }
 	 
 	 /*
@@ -59,6 +148,21 @@ public class OnlineStoreController {
 	        return onlineStoreService.saveOnlineStoreProduct(productData);
 	    }
 	
+	    /*
+	     * Reserves stock of a product, e.g. when an order is placed. The quantity is taken off
+	     * atomically; if not enough stock is left nothing changes and 409 (Conflict) is returned.
+	     *
+	     * productId   The ID of the product to reserve stock of
+	     * reservation The reservation with the quantity to take
+	     * @return The reservation with the quantity left after it
+	     */
+	    @PostMapping("/product/{productId}/reservation")
+	    public OnlineStoreReservation reserveProductQuantity(
+	    		@PathVariable Long productId, @RequestBody OnlineStoreReservation reservation) {
+	        log.info("Reserving {} of product with ID: {}", reservation.getQuantity(), productId);
+	        return onlineStoreInventoryService.reserveProductQuantity(productId, reservation.getQuantity());
+	    }
+	
 	    /*
 		 * This method handles an HTTP POST request to add a user to a product.
 		 * It takes the product ID as a path variable and the user data as a request body.
@@ -73,6 +177,35 @@ public class OnlineStoreController {
 		}
 
 	    
+		/*
+		 * This method handles an HTTP POST request to register a user for a product asynchronously.
+		 * The registration is queued and written in the background; the response is 202 (Accepted)
+		 * with the registration ID and a Location header pointing at its status.
+		 * When the queue is full the response is 503 with a Retry-After header.
+		 */
+		@PostMapping("/{productId}/user/async")
+		public ResponseEntity<OnlineStoreUserRegistration> registerUserForProduct(
+				@PathVariable Long productId, @RequestBody OnlineStoreUser user) {
+			log.info("Queueing registration of user {} for product with ID: {}", user, productId);
+			OnlineStoreUserRegistration registration = userRegistrationService().register(productId, user);
+
+			URI statusUri = ServletUriComponentsBuilder.fromCurrentContextPath()
+					.path("/online_store/user-registration/{registrationId}")
+					.buildAndExpand(registration.getRegistrationId()).toUri();
+			return ResponseEntity.accepted().location(statusUri).body(registration);
+		}
+
+		/*
+		 * This method handles an HTTP GET request for the status of an asynchronous user registration.
+		 * It returns PENDING until the user has been written, then COMPLETED with the user ID (or FAILED).
+		 */
+		@GetMapping("/user-registration/{registrationId}")
+		@RateLimited(EndpointCost.CHEAP)
+		public OnlineStoreUserRegistration retrieveUserRegistration(@PathVariable String registrationId) {
+			log.info("Retrieving user registration with ID: {}", registrationId);
+			return userRegistrationService().retrieveRegistration(registrationId);
+		}
+
 	    /*
 		 * This method handles an HTTP PUT request to update an existing online store user.
 		 * It takes the product ID and user ID as path variables and the updated user data as a request body.
@@ -107,21 +240,218 @@ public class OnlineStoreController {
 		    return onlineStoreService.saveCategory(productId, category);
 		}
 
+		/*
+		 * Retrieves one page of products ordered by product ID. The response carries an ETag computed
+		 * from the IDs and versions of the page; a matching If-None-Match is answered with 304.
+		 * The page is negotiated from the Accept header: JSON by default, Smile with
+		 * application/x-jackson-smile, or columnar JSON with application/vnd.online-store.columnar+json.
+		 * The ETag is weak because the same page is served in all of these representations.
+		 * @param cursor The nextCursor returned with the previous page, omitted for the first page
+		 * @param size The number of products per page, the configured default when omitted
+		 * @return The page of products and the cursor of the next page (null on the last page)
+		 */
 		@GetMapping("/products")
-		public List<OnlineStoreProductData> retrieveAllProducts() {
-		    log.info("Retrieving all products");
-		    return onlineStoreService.retrieveAllProducts();
+		@RateLimited(EndpointCost.EXPENSIVE)
+		public ResponseEntity<OnlineStoreProductPage> retrieveAllProducts(
+		        @RequestParam(required = false) String cursor, @RequestParam(required = false) Integer size,
+		        WebRequest webRequest, HttpServletResponse response) {
+		    log.info("Retrieving products page with cursor={} and size={}", cursor, size);
+
+		    // Caches must keep the representations apart, including on the 304 response
+		    response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+		    String eTag = "W/" + quote(onlineStoreService.retrieveProductPageETag(cursor, size));
+		    if (webRequest.checkNotModified(eTag)) {
+		        return null; // 304 Not Modified has already been set up by checkNotModified
+		    }
+
+		    return ResponseEntity.ok().eTag(eTag).cacheControl(CacheControl.noCache())
+		            .body(onlineStoreService.retrieveAllProducts(cursor, size));
 		}
 
 		/*
-		 * Retrieves a product by its ID.
+		 * Retrieves one page of the products of a category, ordered by product ID.
+		 * @param categoryId The ID of the category to browse
+		 * @param cursor The nextCursor returned with the previous page, omitted for the first page
+		 * @param size The number of products per page, the configured default when omitted
+		 * @return The page of products and the cursor of the next page (null on the last page)
+		 */
+		@GetMapping("/category/{categoryId}/products")
+		@RateLimited(EndpointCost.EXPENSIVE)
+		public OnlineStoreProductPage retrieveProductsByCategory(@PathVariable Long categoryId,
+		        @RequestParam(required = false) String cursor, @RequestParam(required = false) Integer size) {
+		    log.info("Retrieving products of category with ID={} cursor={} size={}", categoryId, cursor, size);
+		    return onlineStoreService.retrieveProductsByCategory(categoryId, cursor, size);
+		}
+
+		/*
+		 * Searches products by name, description and category name.
+		 * @param q The search text; supports simple query syntax such as "phrase", -exclude and prefix*
+		 * @param page The zero-based page number, 0 when omitted
+		 * @param size The number of products per page, the configured default when omitted
+		 * @return The matching products of the page, best match first, and the total hit count
+		 */
+		@GetMapping("/products/search")
+		@RateLimited(EndpointCost.EXPENSIVE)
+		public OnlineStoreSearchResult searchProducts(@RequestParam String q,
+		        @RequestParam(required = false) Integer page, @RequestParam(required = false) Integer size) {
+		    log.info("Searching products for '{}' page={} size={}", q, page, size);
+		    return onlineStoreService.searchProducts(q, page, size);
+		}
+
+		/*
+		 * Exports the whole catalog as newline-delimited JSON, one product summary per line.
+		 * The body is written on an async thread while the products are streamed from the
+		 * database, so neither the entities nor the response are ever held in memory at once.
+		 * Lines are separated, not terminated, by '\n', so an empty catalog is an empty body. The
+		 * async thread reads with the replica routing hint of the request, e.g. pinned to the
+		 * primary right after the client's own write.
+		 */
+		@GetMapping(value = "/products/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+		@RateLimited(EndpointCost.EXPENSIVE)
+		public ResponseEntity<StreamingResponseBody> exportAllProducts() {
+		    log.info("Exporting all products");
+
+		    boolean pinnedToPrimary = ReplicaRoutingContext.isPinnedToPrimary();
+		    StreamingResponseBody body = outputStream -> ReplicaRoutingContext.runWith(pinnedToPrimary, () -> {
+		        // One JSON document per line; flushing is left to the servlet container's buffer
+		        try (SequenceWriter writer = objectMapper.writer()
+		                .withRootValueSeparator("\n")
+		                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+		                .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+		                .writeValues(outputStream)) {
+		            onlineStoreService.streamAllProducts(productData -> {
+		                try {
+		                    writer.write(productData);
+		                } catch (IOException e) {
+		                    throw new UncheckedIOException(e);
+		                }
+		            });
+		        }
+		    });
+
+		    return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+		}
+
+		/*
+		 * Retrieves a product by its ID. The response carries a strong ETag built from the product
+		 * version; a matching If-None-Match is answered with 304 after a version lookup only,
+		 * without loading the product, its users or its categories. Otherwise the ETag is taken from
+		 * the version of the body actually sent, and a cached body older than the version just read
+		 * is evicted and reloaded, so the validator always matches the representation. The product is
+		 * only served as JSON: the ETag names a version, not a format, so it must not be shared by a
+		 * Smile and a JSON body.
 		 * @param productId The ID of the product to retrieve
 		 * @return The product with the specified ID
 		 */
-		@GetMapping("/{productId}")
-		public OnlineStoreProductData retrieveProductById(@PathVariable Long productId) {
+		@GetMapping(value = "/{productId}", produces = MediaType.APPLICATION_JSON_VALUE)
+		@RateLimited(EndpointCost.CHEAP)
+		public ResponseEntity<OnlineStoreProductData> retrieveProductById(@PathVariable Long productId,
+		        WebRequest webRequest, HttpServletResponse response) {
 		    log.info("Retrieving product with ID={}", productId);
-		    return onlineStoreService.retrieveProductById(productId);
+
+		    Long version = onlineStoreService.retrieveProductVersion(productId);
+		    if (webRequest.checkNotModified(quote(productId + "-" + version))) {
+		        return null; // 304 Not Modified has already been set up by checkNotModified
+		    }
+
+		    OnlineStoreProductData product = onlineStoreService.retrieveProductById(productId);
+		    if (product.getProductVersion() < version) {
+		        onlineStoreCacheService.evictProduct(productId);
+		        product = onlineStoreService.retrieveProductById(productId);
+		    }
+
+		    // Replaces the ETag checkNotModified has already put on the response
+		    response.setHeader(HttpHeaders.ETAG, quote(productId + "-" + product.getProductVersion()));
+		    return ResponseEntity.ok().cacheControl(CacheControl.noCache()).body(product);
+		}
+
+		/*
+		 * Retrieves several products with their users and categories in one request, e.g. for a cart.
+		 * @param ids The product IDs, comma separated or as repeated parameters
+		 * @return One entry per requested ID, in request order, with status FOUND or NOT_FOUND
+		 */
+		@GetMapping("/products/batch")
+		@RateLimited(EndpointCost.EXPENSIVE)
+		public List<OnlineStoreProductLookup> retrieveProductsByIds(@RequestParam List<Long> ids) {
+		    log.info("Retrieving {} products by ID", ids.size());
+		    return onlineStoreService.retrieveProductsByIds(ids);
+		}
+
+		/*
+		 * Reports the hit, miss and eviction counters of the product detail cache.
+		 * @return The product cache statistics
+		 */
+		@GetMapping("/cache/stats")
+		@RateLimited(EndpointCost.CHEAP)
+		public OnlineStoreCacheStats retrieveProductCacheStats() {
+		    log.info("Retrieving product cache statistics");
+		    return onlineStoreCacheService.retrieveProductCacheStats();
+		}
+
+		/*
+		 * Reports catalog-wide statistics: product and user counts, inventory value (sum of
+		 * price x quantity) and users per product. Served from in-memory counters, without a query.
+		 * @return The catalog statistics and when they were last reconciled with the database
+		 */
+		@GetMapping("/stats")
+		@RateLimited(EndpointCost.CHEAP)
+		public OnlineStoreCatalogStats retrieveCatalogStats() {
+		    log.info("Retrieving catalog statistics");
+		    return onlineStoreStatisticsService.retrieveCatalogStats();
+		}
+
+		/*
+		 * Reports the number of products in a category, from the in-memory counters.
+		 * @param categoryId The ID of the category
+		 * @return The product count of the category, 0 for a category without products
+		 */
+		@GetMapping("/stats/category/{categoryId}")
+		@RateLimited(EndpointCost.CHEAP)
+		public OnlineStoreCategoryStats retrieveCategoryStats(@PathVariable Long categoryId) {
+		    log.info("Retrieving statistics of category with ID={}", categoryId);
+		    return onlineStoreStatisticsService.retrieveCategoryStats(categoryId);
+		}
+
+		/*
+		 * Reports the number of users of a product, from the in-memory counters.
+		 * @param productId The ID of the product
+		 * @return The user count of the product, 0 for a product without users
+		 */
+		@GetMapping("/stats/product/{productId}")
+		@RateLimited(EndpointCost.CHEAP)
+		public OnlineStoreProductStats retrieveProductStats(@PathVariable Long productId) {
+		    log.info("Retrieving statistics of product with ID={}", productId);
+		    return onlineStoreStatisticsService.retrieveProductStats(productId);
+		}
+
+		/*
+		 * Returns the product, user and category changes after an offset, for consumers that keep a copy
+		 * of the catalog in sync. Pass the returned nextOffset as the next request's after. With wait,
+		 * the request is held open until new changes arrive or the wait (in seconds, at most 60) runs out.
+		 * @param after The offset to read after, the current end of the stream when absent
+		 * @return The changes after the offset, in order, and the offset to continue from
+		 */
+		@GetMapping("/changes")
+		@RateLimited(EndpointCost.CHEAP)
+		public CompletableFuture<OnlineStoreChangeBatch> retrieveChanges(@RequestParam(required = false) Long after,
+		        @RequestParam(defaultValue = "100") int limit, @RequestParam(defaultValue = "0") int wait) {
+		    log.debug("Retrieving changes after offset {}", after);
+		    return changeEventRelay.poll(after, limit, wait);
+		}
+
+		/*
+		 * Streams the changes as server-sent events named "change", each with its offset as the event ID,
+		 * so a reconnecting client resumes from its Last-Event-ID header.
+		 * @param after The offset to stream after, the current end of the stream when absent
+		 */
+		@GetMapping(value = "/changes/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+		@RateLimited(EndpointCost.CHEAP)
+		public SseEmitter streamChanges(@RequestParam(required = false) Long after,
+		        @RequestHeader(name = "Last-Event-ID", required = false) Long lastEventId) {
+		    long offset = Objects.nonNull(lastEventId) ? lastEventId
+		            : Objects.nonNull(after) ? after : changeEventRelay.currentOffset();
+		    log.info("Streaming changes after offset {}", offset);
+		    return changeEventRelay.subscribe(offset);
 		}
 
 		/*
@@ -136,6 +466,49 @@ public class OnlineStoreController {
 		    return Map.of("message", "Product with ID=" + productId + " deleted.");
 		}
 
+		/*
+		 * Starts retiring many products in the background: every product of a category, or a list of
+		 * product IDs, deleted or moved to the archive tables together with their users and category links.
+		 * The response is 202 (Accepted) with the job and a Location header pointing at its progress.
+		 * When too many jobs are already waiting the response is 503 with a Retry-After header.
+		 */
+		@PostMapping("/products/retirement")
+		@RateLimited(EndpointCost.EXPENSIVE)
+		public ResponseEntity<OnlineStoreRetirementJob> retireProducts(
+				@RequestBody OnlineStoreProductRetirement retirement) {
+			log.info("Starting retirement of products: {}", retirement);
+			OnlineStoreRetirementJob job = productRetirementService.startRetirement(retirement);
+
+			URI statusUri = ServletUriComponentsBuilder.fromCurrentContextPath()
+					.path("/online_store/products/retirement/{jobId}")
+					.buildAndExpand(job.getJobId()).toUri();
+			return ResponseEntity.accepted().location(statusUri).body(job);
+		}
+
+		/*
+		 * Returns the progress of a retirement job: the products counted at its start, the products and
+		 * users retired so far, and whether it is still running, COMPLETED or FAILED.
+		 */
+		@GetMapping("/products/retirement/{jobId}")
+		@RateLimited(EndpointCost.CHEAP)
+		public OnlineStoreRetirementJob retrieveRetirementJob(@PathVariable String jobId) {
+			log.info("Retrieving retirement job with ID: {}", jobId);
+			return productRetirementService.retrieveJob(jobId);
+		}
+
+		private UserRegistrationService userRegistrationService() {
+		    UserRegistrationService service = userRegistrationService.getIfAvailable();
+		    if (service == null) {
+		        throw new NoSuchElementException("Asynchronous user registration is not enabled.");
+		    }
+		    return service;
+		}
+
+		// ETag values are quoted strings
+		private static String quote(String eTag) {
+		    return "\"" + eTag + "\"";
+		}
+
 }
 
 
@@ -0,0 +1,88 @@
+package online.store.controller;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import lombok.extern.slf4j.Slf4j;
+import online.store.controller.model.OnlineStoreProductData;
+import online.store.controller.model.OnlineStoreProductPage;
+import online.store.controller.model.OnlineStoreProductSummary;
+import online.store.ratelimit.EndpointCost;
+import online.store.ratelimit.RateLimited;
+import online.store.service.ReactiveOnlineStoreService;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@RestController//the reactive read endpoints, only present with online-store.reactive.enabled
+@RequestMapping("/online_store/reactive")//the same reads as OnlineStoreController, under "/online_store/reactive"
+@ConditionalOnProperty(prefix = "online-store.reactive", name = "enabled", havingValue = "true")
+@Slf4j //This is a Lombok annotation that creates an SLFJ logger
+
+/*
+ * Spring MVC serves the returned Mono and Flux asynchronously: the request thread is released as soon as
+ * the handler returns and the response is written when the R2DBC query emits, so a slow query holds a
+ * connection but no thread. Writes are not offered here; they go through OnlineStoreController.
+ */
+public class ReactiveOnlineStoreController {
+	
+	@Autowired//injecting the R2DBC-backed read service
+	private ReactiveOnlineStoreService reactiveOnlineStoreService;
+	
+		/*
+		 * Retrieves a product with its users and categories.
+		 * @param productId The ID of the product
+		 * @return The product data, or 404 if there is no such product
+		 */
+		@GetMapping("/{productId}")
+		@RateLimited(EndpointCost.CHEAP)
+		public Mono<OnlineStoreProductData> retrieveProductById(@PathVariable Long productId) {
+		    log.info("Reactively retrieving product with ID={}", productId);
+		    return reactiveOnlineStoreService.retrieveProductById(productId);
+		}
+
+		/*
+		 * Retrieves one page of products ordered by product ID. Cursors are interchangeable with
+		 * those of GET /online_store/products.
+		 * @param cursor The nextCursor returned with the previous page, omitted for the first page
+		 * @param size The number of products per page, the configured default when omitted
+		 * @return The page of products and the cursor of the next page (null on the last page)
+		 */
+		@GetMapping("/products")
+		@RateLimited(EndpointCost.EXPENSIVE)
+		public Mono<OnlineStoreProductPage> retrieveAllProducts(
+		        @RequestParam(required = false) String cursor, @RequestParam(required = false) Integer size) {
+		    log.info("Reactively retrieving products page with cursor={} and size={}", cursor, size);
+		    return reactiveOnlineStoreService.retrieveAllProducts(cursor, size);
+		}
+
+		/*
+		 * Retrieves one page of the products of a category, ordered by product ID.
+		 * @param categoryId The ID of the category to browse
+		 * @return The page of products and the cursor of the next page (null on the last page)
+		 */
+		@GetMapping("/category/{categoryId}/products")
+		@RateLimited(EndpointCost.EXPENSIVE)
+		public Mono<OnlineStoreProductPage> retrieveProductsByCategory(@PathVariable Long categoryId,
+		        @RequestParam(required = false) String cursor, @RequestParam(required = false) Integer size) {
+		    log.info("Reactively retrieving products of category with ID={} cursor={} size={}", categoryId, cursor, size);
+		    return reactiveOnlineStoreService.retrieveProductsByCategory(categoryId, cursor, size);
+		}
+
+		/*
+		 * Streams the whole catalog as newline-delimited JSON, one product summary per line. Each line
+		 * is written and flushed before the next row is requested, so a slow client slows the query
+		 * down instead of the server buffering the catalog.
+		 */
+		@GetMapping(value = "/products/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+		@RateLimited(EndpointCost.EXPENSIVE)
+		public Flux<OnlineStoreProductSummary> exportProducts() {
+		    log.info("Reactively exporting the product catalog");
+		    return reactiveOnlineStoreService.streamAllProducts();
+		}
+}
@@ -0,0 +1,101 @@
+package online.store.controller.converter;
+
+import java.io.IOException;
+
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.util.StreamUtils;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import online.store.controller.model.OnlineStoreProductPage;
+import online.store.controller.model.OnlineStoreProductSummary;
+
+/*
+ * Writes a page of products in a columnar JSON layout: the property names are sent once in
+ * "columns" and every product becomes an array of values in "rows", in the same order.
+ *
+ *   {"columns":["productId",...],"rows":[[1,"Lamp","Desk lamp",2500,7],...],"nextCursor":"..."}
+ *
+ * Clients opt in with Accept: application/vnd.online-store.columnar+json. The page is written
+ * product by product with Jackson's streaming JsonGenerator straight to the response body, so no
+ * tree or intermediate buffer of the whole page is built. Only writing is supported.
+ */
+public class ColumnarProductPageHttpMessageConverter extends AbstractHttpMessageConverter<OnlineStoreProductPage> {
+
+    public static final MediaType COLUMNAR_JSON = new MediaType("application", "vnd.online-store.columnar+json");
+
+    private static final String[] COLUMNS = {
+            "productId", "productName", "productDescription", "productPrice", "productQuantity" };
+
+    private final JsonFactory jsonFactory;
+
+    public ColumnarProductPageHttpMessageConverter(JsonFactory jsonFactory) {
+        super(COLUMNAR_JSON);
+        this.jsonFactory = jsonFactory;
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return OnlineStoreProductPage.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    public boolean canRead(Class<?> clazz, MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    protected OnlineStoreProductPage readInternal(Class<? extends OnlineStoreProductPage> clazz,
+            HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("The columnar product format is write-only.", inputMessage);
+    }
+
+    @Override
+    protected void writeInternal(OnlineStoreProductPage page, HttpOutputMessage outputMessage) throws IOException {
+        // The servlet container owns the response stream, so the generator must not close it
+        try (JsonGenerator generator = jsonFactory.createGenerator(
+                StreamUtils.nonClosing(outputMessage.getBody()), JsonEncoding.UTF8)) {
+            writePage(page, generator);
+        }
+    }
+
+    // Writes the page as one columnar JSON object; public so benchmarks can drive it without HTTP
+    public void writePage(OnlineStoreProductPage page, JsonGenerator generator) throws IOException {
+        generator.writeStartObject();
+
+        generator.writeArrayFieldStart("columns");
+        for (String column : COLUMNS) {
+            generator.writeString(column);
+        }
+        generator.writeEndArray();
+
+        generator.writeArrayFieldStart("rows");
+        for (OnlineStoreProductSummary product : page.getProducts()) {
+            generator.writeStartArray();
+            writeNumber(generator, product.getProductId());
+            generator.writeString(product.getProductName());
+            generator.writeString(product.getProductDescription());
+            writeNumber(generator, product.getProductPrice());
+            writeNumber(generator, product.getProductQuantity());
+            generator.writeEndArray();
+        }
+        generator.writeEndArray();
+
+        generator.writeStringField("nextCursor", page.getNextCursor());
+        generator.writeEndObject();
+    }
+
+    private static void writeNumber(JsonGenerator generator, Long value) throws IOException {
+        if (value == null) {
+            generator.writeNull();
+        } else {
+            generator.writeNumber(value);
+        }
+    }
+}
@@ -0,0 +1 @@
+package online.store.controller.converter;
\ No newline at end of file
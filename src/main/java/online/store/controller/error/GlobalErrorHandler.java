@@ -2,13 +2,19 @@ package online.store.controller.error;
 
 import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.concurrent.RejectedExecutionException;
 
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.extern.slf4j.Slf4j;
+import online.store.ratelimit.RateLimitExceededException;
+import online.store.service.BadRequestException;
+import online.store.service.ConflictException;
 
 @RestControllerAdvice // Indicates that this class handles exceptions globally for all controllers
 @Slf4j // Lombok annotation for SLF4J logger
@@ -21,4 +27,36 @@ public class GlobalErrorHandler {
         log.error("Exception: {}", ex.toString()); // Logs the error message using SLF4J logger
         return Map.of("message", ex.toString()); // Returns a map with a single entry containing the error message
     }
+
+    @ExceptionHandler(BadRequestException.class) // Handles invalid input such as a bad page cursor or page size
+    @ResponseStatus(code = HttpStatus.BAD_REQUEST) // Sets the HTTP response status to 400 (Bad Request)
+    public Map<String, String> handleBadRequestException(BadRequestException ex) {
+        log.warn("Exception: {}", ex.toString()); // A client error, not a fault of the application
+        return Map.of("message", ex.toString());
+    }
+
+    @ExceptionHandler(ConflictException.class) // Handles requests that conflict with the current state, e.g. InsufficientStockException
+    @ResponseStatus(code = HttpStatus.CONFLICT) // Sets the HTTP response status to 409 (Conflict)
+    public Map<String, String> handleConflictException(ConflictException ex) {
+        log.warn("Exception: {}", ex.toString());
+        return Map.of("message", ex.toString());
+    }
+
+    @ExceptionHandler(RejectedExecutionException.class) // Handles work turned away because a queue or limit is full
+    @ResponseStatus(code = HttpStatus.SERVICE_UNAVAILABLE) // Sets the HTTP response status to 503 (Service Unavailable)
+    public Map<String, String> handleRejectedExecutionException(RejectedExecutionException ex,
+            HttpServletResponse response) {
+        log.warn("Exception: {}", ex.toString());
+        response.setHeader(HttpHeaders.RETRY_AFTER, "1"); // Tells clients to back off before retrying
+        return Map.of("message", ex.toString());
+    }
+
+    @ExceptionHandler(RateLimitExceededException.class) // Handles clients going over their rate limit
+    @ResponseStatus(code = HttpStatus.TOO_MANY_REQUESTS) // Sets the HTTP response status to 429 (Too Many Requests)
+    public Map<String, String> handleRateLimitExceededException(RateLimitExceededException ex,
+            HttpServletResponse response) {
+        log.warn("Exception: {}", ex.toString());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds())); // When a token is back
+        return Map.of("message", ex.toString());
+    }
 }
@@ -0,0 +1,20 @@
+package online.store.controller.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OnlineStoreBulkResult {
+
+    private Integer index; // Position of the item in the request body
+    private Long productId; // ID of the created or updated product (the requested ID when it was not found)
+    private BulkItemStatus status; // What happened to the item
+    private String message; // Reason for a failed item, null otherwise
+
+    public enum BulkItemStatus {
+        CREATED, UPDATED, NOT_FOUND
+    }
+}
@@ -0,0 +1,18 @@
+package online.store.controller.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OnlineStoreCacheStats {
+
+    private String cacheName; // Name of the cache the counters belong to
+    private Long size; // Approximate number of entries currently cached
+    private Long hitCount; // Number of lookups served from the cache
+    private Long missCount; // Number of lookups that had to go to the database
+    private Long evictionCount; // Number of entries dropped because of size or TTL limits
+    private Double hitRate; // hitCount / (hitCount + missCount), 1.0 when there were no lookups
+}
@@ -0,0 +1,20 @@
+package online.store.controller.model;
+
+import java.time.Instant;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OnlineStoreCatalogStats {
+
+    private Long productCount; // Number of products in the catalog
+    private Long userCount; // Number of users across all products
+    private Long inventoryValue; // Sum of productPrice * productQuantity over all products
+    private Integer categoryCount; // Number of categories with at least one product
+    private Double averageUsersPerProduct; // userCount / productCount, 0.0 for an empty catalog
+    private Instant reconciledAt; // When the counters were last checked against the database, null before the first run
+}
@@ -2,7 +2,6 @@ package online.store.controller.model;
 
 import lombok.Data;
 import lombok.NoArgsConstructor;
-import online.store.entity.Category;
 
 @Data
 @NoArgsConstructor
@@ -10,9 +9,4 @@ public class OnlineStoreCategory {
 
     private Long categoryId; // Unique identifier for each category
     private String categoryName; // Name of the category
-
-    public OnlineStoreCategory(Category category) {
-        this.categoryId = category.getCategoryId();
-        this.categoryName = category.getCategoryName();
-    }
-}
\ No newline at end of file
+}
@@ -0,0 +1,14 @@
+package online.store.controller.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OnlineStoreCategoryStats {
+
+    private Long categoryId; // The category the counter belongs to
+    private Long productCount; // Number of products linked to the category
+}
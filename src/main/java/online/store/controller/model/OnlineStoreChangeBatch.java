@@ -0,0 +1,17 @@
+package online.store.controller.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OnlineStoreChangeBatch {
+
+    private List<OnlineStoreChangeEvent> events = new ArrayList<>(); // Events after the requested offset, in offset order
+    private Long nextOffset; // Offset to ask for next: the last event's ID, or the requested offset when there were none
+}
@@ -0,0 +1,28 @@
+package online.store.controller.model;
+
+import java.time.Instant;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OnlineStoreChangeEvent {
+
+    private Long eventId; // Offset of the event, its position in commit order; pass it back as "after" (or Last-Event-ID) to resume after it
+    private AggregateType aggregateType; // What changed
+    private Long aggregateId; // ID of the product, user or category that changed
+    private Long productId; // The product the change belongs to; a category change affects all products of the category
+    private Operation operation; // The kind of change
+    private Instant occurredAt; // When the change was written
+
+    public enum AggregateType {
+        PRODUCT, USER, CATEGORY
+    }
+
+    public enum Operation {
+        CREATED, UPDATED, DELETED
+    }
+}
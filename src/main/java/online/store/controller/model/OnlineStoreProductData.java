@@ -1,11 +1,9 @@
 package online.store.controller.model;
 
-import online.store.entity.Category;
-import online.store.entity.Product;
-import online.store.entity.User;
+import java.util.ArrayList;
+import java.util.List;
 
-import java.util.HashSet;
-import java.util.Set;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -19,31 +17,8 @@ public class OnlineStoreProductData {
     private String productDescription; // Field to store the product description
     private Long productPrice; // Field to store the product price
     private Long productQuantity; // Field to store the product quantity
-    private Set<OnlineStoreUser> users = new HashSet<>(); // Set of associated users
-    private Set<OnlineStoreCategory> categories = new HashSet<>(); // Set of associated categories
-
-    public OnlineStoreProductData(Product product) {
-        this.productId = product.getProductId();
-        this.productName = product.getProductName();
-        this.productDescription = product.getProductDescription();
-        this.productPrice = product.getProductPrice();
-        this.productQuantity = product.getProductQuantity();
-        
-        // Setting users
-        for (User user : product.getUsers()) {
-            OnlineStoreUser onlineStoreUser = new OnlineStoreUser(user);
-            users.add(onlineStoreUser);
-        }
-        
-        // Setting categories
-        for (Category category : product.getCategories()) {
-            OnlineStoreCategory onlineStoreCategory = new OnlineStoreCategory(category);
-            categories.add(onlineStoreCategory);
-        }
-    }
+    @JsonIgnore // Not part of the API; the ETag of the product detail is built from it
+    private Long productVersion; // Version of the product this view was built from
+    private List<OnlineStoreUser> users = new ArrayList<>(); // Associated users
+    private List<OnlineStoreCategory> categories = new ArrayList<>(); // Associated categories
 }
-
-
-
-
-
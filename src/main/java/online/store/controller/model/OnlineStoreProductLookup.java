@@ -0,0 +1,19 @@
+package online.store.controller.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OnlineStoreProductLookup {
+
+    private Long productId; // The requested product ID
+    private LookupStatus status; // Whether the product was found
+    private OnlineStoreProductData product; // The product with its users and categories, null when not found
+
+    public enum LookupStatus {
+        FOUND, NOT_FOUND
+    }
+}
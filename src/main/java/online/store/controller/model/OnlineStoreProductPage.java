@@ -0,0 +1,17 @@
+package online.store.controller.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OnlineStoreProductPage {
+
+    private List<OnlineStoreProductSummary> products = new ArrayList<>(); // Products on this page, ordered by product ID
+    private String nextCursor; // Opaque token for the next page, null when this is the last page
+}
@@ -0,0 +1,17 @@
+package online.store.controller.model;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OnlineStoreProductRetirement {
+
+    private Long categoryId; // Retire every product of this category, or
+    private List<Long> productIds; // retire these products; exactly one of the two is given
+    private boolean archive; // Move the products, their users and category links to the archive tables instead of deleting them
+}
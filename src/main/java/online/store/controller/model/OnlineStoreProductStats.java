@@ -0,0 +1,14 @@
+package online.store.controller.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OnlineStoreProductStats {
+
+    private Long productId; // The product the counter belongs to
+    private Long userCount; // Number of users of the product
+}
@@ -0,0 +1,18 @@
+package online.store.controller.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// The scalar fields of a product, as returned by the listing, search and export endpoints
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OnlineStoreProductSummary {
+
+    private Long productId; // Field to store the product ID (primary key)
+    private String productName; // Field to store the product name
+    private String productDescription; // Field to store the product description
+    private Long productPrice; // Field to store the product price
+    private Long productQuantity; // Field to store the product quantity
+}
@@ -0,0 +1,15 @@
+package online.store.controller.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OnlineStoreReservation {
+
+    private Long productId; // Product the quantity is taken from
+    private Long quantity; // Number of items to reserve (taken off productQuantity)
+    private Long remainingQuantity; // Product quantity left after the reservation
+}
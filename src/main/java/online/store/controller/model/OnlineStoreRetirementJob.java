@@ -0,0 +1,27 @@
+package online.store.controller.model;
+
+import java.time.Instant;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OnlineStoreRetirementJob {
+
+    private String jobId; // ID to poll the progress of the job with
+    private JobStatus status; // Where the job is
+    private boolean archive; // Whether the products are archived rather than deleted
+    private long totalProducts; // Products to retire, counted when the job starts
+    private long retiredProducts; // Products retired so far, in committed chunks
+    private long retiredUsers; // Users retired with them so far
+    private Instant startedAt; // When the job started running, null while PENDING
+    private Instant finishedAt; // When the job COMPLETED or FAILED
+    private String message; // Reason of a FAILED job, null otherwise
+
+    public enum JobStatus {
+        PENDING, RUNNING, COMPLETED, FAILED
+    }
+}
@@ -0,0 +1,20 @@
+package online.store.controller.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OnlineStoreSearchResult {
+
+    private String query; // The search text as the client sent it
+    private Long totalHitCount; // Number of products matching the query across all pages
+    private Integer page; // Zero-based page number of this result
+    private Integer size; // Page size used for this result
+    private List<OnlineStoreProductSummary> products = new ArrayList<>(); // Matching products, best match first
+}
@@ -0,0 +1,21 @@
+package online.store.controller.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OnlineStoreUserRegistration {
+
+    private String registrationId; // ID to poll the status of the registration with
+    private Long productId; // Product the user registers for
+    private RegistrationStatus status; // Where the registration is in the write-behind pipeline
+    private Long userId; // ID of the created user once the registration is COMPLETED
+    private String message; // Reason of a FAILED registration, null otherwise
+
+    public enum RegistrationStatus {
+        PENDING, COMPLETED, FAILED
+    }
+}
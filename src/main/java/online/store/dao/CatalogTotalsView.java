@@ -0,0 +1,9 @@
+package online.store.dao;
+
+// Projection of the catalog-wide product aggregates, used to reconcile the in-memory statistics
+public interface CatalogTotalsView {
+
+    Long getProductCount();
+
+    Long getInventoryValue();
+}
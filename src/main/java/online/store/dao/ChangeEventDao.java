@@ -0,0 +1,37 @@
+package online.store.dao;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import online.store.entity.ChangeEvent;
+
+public interface ChangeEventDao extends JpaRepository <ChangeEvent, Long> {
+
+    // Committed events that have no stream position yet, oldest first
+    List<ChangeEvent> findByStreamPositionIsNullOrderByEventIdAsc(Pageable pageable);
+
+    // The next positioned events the relay has not seen yet
+    List<ChangeEvent> findByStreamPositionGreaterThanOrderByStreamPositionAsc(Long streamPosition, Pageable pageable);
+
+    // Relayed events after a consumer's offset, for consumers that are behind the in-memory tail
+    List<ChangeEvent> findByStreamPositionGreaterThanAndStreamPositionLessThanEqualOrderByStreamPositionAsc(
+            Long streamPosition, Long relayedUpTo, Pageable pageable);
+
+    @Query("select max(e.streamPosition) from ChangeEvent e")
+    Optional<Long> findMaxStreamPosition();
+
+    @Query("select min(e.streamPosition) from ChangeEvent e")
+    Optional<Long> findMinStreamPosition();
+
+    // Drops the events past the retention period
+    @Modifying
+    @Query("delete from ChangeEvent e where e.occurredAt < :occurredBefore")
+    int deleteOccurredBefore(@Param("occurredBefore") Instant occurredBefore);
+}
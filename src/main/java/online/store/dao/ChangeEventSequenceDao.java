@@ -0,0 +1,16 @@
+package online.store.dao;
+
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+
+import jakarta.persistence.LockModeType;
+import online.store.entity.ChangeEventSequence;
+
+public interface ChangeEventSequenceDao extends JpaRepository <ChangeEventSequence, Long> {
+
+    // Reads the sequence row and locks it until the end of the transaction (select ... for update)
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    Optional<ChangeEventSequence> findWithLockBySequenceId(Long sequenceId);
+}
@@ -0,0 +1,9 @@
+package online.store.dao;
+
+// Projection of one row of a GROUP BY count: the grouping ID and the number of rows in the group
+public interface GroupCountView {
+
+    Long getId();
+
+    Long getTotal();
+}
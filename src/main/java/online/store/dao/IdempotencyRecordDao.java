@@ -0,0 +1,36 @@
+package online.store.dao;
+
+import java.time.Instant;
+
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import jakarta.persistence.QueryHint;
+import online.store.entity.IdempotencyRecord;
+
+public interface IdempotencyRecordDao extends JpaRepository <IdempotencyRecord, String> {
+
+    // Claims a key with a plain INSERT. A concurrent claim of the same key waits on the primary key
+    // until the first transaction ends, then fails with a duplicate key if that transaction committed.
+    // The query space keeps Hibernate from clearing the whole second-level cache for this native insert.
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "idempotency_record"))
+    @Query(value = "insert into idempotency_record (idempotency_key, fingerprint, created_at)"
+            + " values (:idempotencyKey, :fingerprint, :createdAt)", nativeQuery = true)
+    int claim(@Param("idempotencyKey") String idempotencyKey, @Param("fingerprint") String fingerprint,
+            @Param("createdAt") Instant createdAt);
+
+    // Stores the response of a claimed key, to be replayed to retries
+    @Modifying
+    @Query("update IdempotencyRecord r set r.responseBody = :responseBody where r.idempotencyKey = :idempotencyKey")
+    int complete(@Param("idempotencyKey") String idempotencyKey, @Param("responseBody") String responseBody);
+
+    // Forgets keys older than the retention period
+    @Modifying
+    @Query("delete from IdempotencyRecord r where r.createdAt < :createdBefore")
+    int deleteCreatedBefore(@Param("createdBefore") Instant createdBefore);
+}
@@ -1,9 +1,31 @@
 package online.store.dao;
 
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import jakarta.persistence.QueryHint;
 import online.store.entity.Category;
 
 public interface OnlineStoreCategoryDao extends JpaRepository<Category, Long> {
 
+    // Whether a category exists, from the query cache; existsById would run a count on every call
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+        @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = "category-queries")
+    })
+    boolean existsByCategoryId(Long categoryId);
+
+    // Whether a category is linked to a product (0 or 1), answered from the category_product index alone.
+    // Cached; the query space lets Hibernate drop the cached answers whenever category_product changes.
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+        @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = "category-queries"),
+        @QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "category_product")
+    })
+    @Query(value = "select count(*) from category_product where category_id = :categoryId and product_id = :productId",
+            nativeQuery = true)
+    long countProductLinks(@Param("categoryId") Long categoryId, @Param("productId") Long productId);
 }
@@ -1,9 +1,163 @@
 package online.store.dao;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import jakarta.persistence.QueryHint;
 
 import online.store.entity.Product;
 
 public interface OnlineStoreProductDao extends JpaRepository <Product, Long> {
 
+    // First page of the keyset listing; the Pageable only carries the page size (no count query is issued)
+    List<Product> findAllByOrderByProductIdAsc(Pageable pageable);
+
+    // Following pages of the keyset listing: seek past the last product ID of the previous page
+    List<Product> findByProductIdGreaterThanOrderByProductIdAsc(Long productId, Pageable pageable);
+
+    // Streams every product for the catalog export; rows are pulled from the driver in fetch-size chunks
+    // and loaded read-only so Hibernate keeps no snapshots for dirty checking. Must be consumed inside a transaction.
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    Stream<Product> streamAllByOrderByProductIdAsc();
+
+    // Loads a product together with its users in one statement
+    @Query("select p from Product p left join fetch p.users where p.productId = :productId")
+    Optional<Product> findWithUsersByProductId(@Param("productId") Long productId);
+
+    // Multi-get counterpart of the query above: several products with their users
+    @Query("select distinct p from Product p left join fetch p.users where p.productId in :productIds")
+    List<Product> findWithUsersByProductIdIn(@Param("productIds") Collection<Long> productIds);
+
+    // IDs of the products linked to a category, read from the join table without loading the products
+    @Query("select p.productId from Product p join p.categories c where c.categoryId = :categoryId")
+    List<Long> findProductIdsByCategoryId(@Param("categoryId") Long categoryId);
+
+    // First page of the products of a category, in product ID order
+    @Query("select p from Product p join p.categories c where c.categoryId = :categoryId order by p.productId")
+    List<Product> findByCategoryId(@Param("categoryId") Long categoryId, Pageable pageable);
+
+    // Following pages of the products of a category: seek past the last product ID of the previous page
+    @Query("select p from Product p join p.categories c where c.categoryId = :categoryId"
+            + " and p.productId > :productId order by p.productId")
+    List<Product> findByCategoryIdAfterProductId(@Param("categoryId") Long categoryId,
+            @Param("productId") Long productId, Pageable pageable);
+
+    // Bumps the versions of products whose users changed without the products being loaded
+    @Modifying
+    @Query("update Product p set p.productVersion = p.productVersion + 1 where p.productId in :productIds")
+    int incrementVersions(@Param("productIds") Collection<Long> productIds);
+
+    // Takes quantity off the stock in one statement, only if enough is left; returns the number of rows changed (0 or 1)
+    @Modifying
+    @Query("update Product p set p.productQuantity = p.productQuantity - :quantity,"
+            + " p.productVersion = p.productVersion + 1 where p.productId = :productId and p.productQuantity >= :quantity")
+    int decrementQuantity(@Param("productId") Long productId, @Param("quantity") Long quantity);
+
+    // Reads just the version of a product, the cheap lookup behind the product ETag
+    @Query("select p.productVersion from Product p where p.productId = :productId")
+    Optional<Long> findVersionByProductId(@Param("productId") Long productId);
+
+    // IDs and versions of the rows of a listing page, the first page and the following pages
+    List<ProductVersionView> findVersionsByOrderByProductIdAsc(Pageable pageable);
+
+    List<ProductVersionView> findVersionsByProductIdGreaterThanOrderByProductIdAsc(Long productId, Pageable pageable);
+
+    // Bumps the version of every product of a category, whose detail view changes when the category is renamed.
+    // Native so the subquery only reads the join table (MySQL rejects a subquery on the table being updated).
+    // The query space tells Hibernate that only product rows change, so the second-level cache survives it.
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "product"))
+    @Query(value = "update product set product_version = product_version + 1"
+            + " where product_id in (select product_id from category_product where category_id = :categoryId)",
+            nativeQuery = true)
+    int incrementVersionsByCategoryId(@Param("categoryId") Long categoryId);
+
+    // Reads just the stock level of a product
+    @Query("select p.productQuantity from Product p where p.productId = :productId")
+    Optional<Long> findQuantityByProductId(@Param("productId") Long productId);
+
+    // Reads the stock level together with the unit price, which together give the product's inventory value
+    @Query("select p.productQuantity as productQuantity, p.productPrice as productPrice from Product p"
+            + " where p.productId = :productId")
+    Optional<ProductStockView> findStockByProductId(@Param("productId") Long productId);
+
+    // Product count and total inventory value (price x quantity) of the whole catalog
+    @Query("select count(p) as productCount, coalesce(sum(p.productPrice * p.productQuantity), 0) as inventoryValue"
+            + " from Product p")
+    CatalogTotalsView findCatalogTotals();
+
+    // Number of products in every category that has any, read from the join table alone
+    @Query(value = "select category_id as id, count(*) as total from category_product group by category_id",
+            nativeQuery = true)
+    List<GroupCountView> countProductsByCategory();
+
+    // Number of products linked to a category, read from the join table alone
+    @Query(value = "select count(*) from category_product where category_id = :categoryId", nativeQuery = true)
+    long countProductsByCategoryId(@Param("categoryId") Long categoryId);
+
+    // Keyset page of the product IDs of a category: the IDs after the given one, in order, from the join table index
+    @Query(value = "select product_id from category_product where category_id = :categoryId"
+            + " and product_id > :afterProductId order by product_id limit :limit", nativeQuery = true)
+    List<Long> findProductIdsByCategoryIdAfter(@Param("categoryId") Long categoryId,
+            @Param("afterProductId") Long afterProductId, @Param("limit") int limit);
+
+    // Locks the given products that exist and returns their IDs. The rows are locked in ID order so that two
+    // transactions locking overlapping sets cannot deadlock.
+    @Query(value = "select product_id from product where product_id in (:productIds) order by product_id for update",
+            nativeQuery = true)
+    List<Long> lockProductIds(@Param("productIds") Collection<Long> productIds);
+
+    // Product count and total inventory value of the given products
+    @Query("select count(p) as productCount, coalesce(sum(p.productPrice * p.productQuantity), 0) as inventoryValue"
+            + " from Product p where p.productId in :productIds")
+    CatalogTotalsView findTotalsByProductIdIn(@Param("productIds") Collection<Long> productIds);
+
+    // Number of the given products in each of their categories, read from the join table alone
+    @Query(value = "select category_id as id, count(*) as total from category_product"
+            + " where product_id in (:productIds) group by category_id", nativeQuery = true)
+    List<GroupCountView> countCategoryLinksByProductIdIn(@Param("productIds") Collection<Long> productIds);
+
+    /*
+     * The set-based statements that retire products: the rows are copied to the archive tables first
+     * when archiving, then the join rows, the users and the products are deleted, in that order because
+     * of the foreign keys. Each statement names the one table it writes as its query space, so Hibernate
+     * only invalidates the caches that depend on that table.
+     */
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "product_archive"))
+    @Query(value = "insert into product_archive (product_id, product_name, product_description, product_price,"
+            + " product_quantity, product_version, archived_at)"
+            + " select product_id, product_name, product_description, product_price, product_quantity, product_version,"
+            + " current_timestamp(6) from product where product_id in (:productIds)", nativeQuery = true)
+    int archiveByProductIdIn(@Param("productIds") Collection<Long> productIds);
+
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "category_product_archive"))
+    @Query(value = "insert into category_product_archive (product_id, category_id, archived_at)"
+            + " select product_id, category_id, current_timestamp(6) from category_product"
+            + " where product_id in (:productIds)", nativeQuery = true)
+    int archiveCategoryLinksByProductIdIn(@Param("productIds") Collection<Long> productIds);
+
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "category_product"))
+    @Query(value = "delete from category_product where product_id in (:productIds)", nativeQuery = true)
+    int deleteCategoryLinksByProductIdIn(@Param("productIds") Collection<Long> productIds);
+
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "product"))
+    @Query(value = "delete from product where product_id in (:productIds)", nativeQuery = true)
+    int deleteByProductIdIn(@Param("productIds") Collection<Long> productIds);
 }
@@ -1,9 +1,43 @@
 package online.store.dao;
 
+import java.util.Collection;
+import java.util.List;
+
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import jakarta.persistence.QueryHint;
 import online.store.entity.User;
 
 public interface OnlineStoreUserDao extends JpaRepository <User, Long> {
 
+    // Number of users of every product that has any, for the catalog statistics reconciliation
+    @Query("select u.product.productId as id, count(u) as total from User u group by u.product.productId")
+    List<GroupCountView> countUsersByProduct();
+
+    // The users created by the given asynchronous registrations, to recognize registrations already written
+    List<User> findByRegistrationIdIn(Collection<String> registrationIds);
+
+    // Number of users of the given products
+    @Query("select count(u) from User u where u.product.productId in :productIds")
+    long countByProductIdIn(@Param("productIds") Collection<Long> productIds);
+
+    // Copies the users of the given products to the archive table, see OnlineStoreProductDao.archiveByProductIdIn
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "user_archive"))
+    @Query(value = "insert into user_archive (user_id, user_email, user_first_name, user_last_name, user_address,"
+            + " product_id, archived_at)"
+            + " select user_id, user_email, user_first_name, user_last_name, user_address, product_id,"
+            + " current_timestamp(6) from user where product_id in (:productIds)", nativeQuery = true)
+    int archiveByProductIdIn(@Param("productIds") Collection<Long> productIds);
+
+    // Deletes the users of the given products in one statement, without loading them
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "user"))
+    @Query(value = "delete from user where product_id in (:productIds)", nativeQuery = true)
+    int deleteByProductIdIn(@Param("productIds") Collection<Long> productIds);
 }
@@ -0,0 +1,9 @@
+package online.store.dao;
+
+// Projection of the stock level and unit price of a product, read after a reservation
+public interface ProductStockView {
+
+    Long getProductQuantity();
+
+    Long getProductPrice();
+}
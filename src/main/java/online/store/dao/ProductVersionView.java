@@ -0,0 +1,9 @@
+package online.store.dao;
+
+// Projection of just the ID and version of a product, used to compute ETags without loading entities
+public interface ProductVersionView {
+
+    Long getProductId();
+
+    Long getProductVersion();
+}
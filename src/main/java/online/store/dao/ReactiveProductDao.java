@@ -0,0 +1,124 @@
+package online.store.dao;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+
+import io.r2dbc.spi.Readable;
+import online.store.config.ReactiveDataSourceProperties;
+import online.store.controller.model.OnlineStoreCategory;
+import online.store.controller.model.OnlineStoreProductSummary;
+import online.store.controller.model.OnlineStoreUser;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@Repository
+@ConditionalOnProperty(prefix = "online-store.reactive", name = "enabled", havingValue = "true")
+// The queries of the reactive read path, the R2DBC counterparts of the OnlineStoreProductDao reads.
+// There are no JPA entities on this side, so the rows are mapped straight to the DTOs.
+public class ReactiveProductDao {
+
+    private static final String PRODUCT_COLUMNS = "p.product_id, p.product_name, p.product_description,"
+            + " p.product_price, p.product_quantity";
+
+    private final DatabaseClient databaseClient;
+    private final int fetchSize; // Rows per round trip when streaming the catalog
+
+    @Autowired
+    public ReactiveProductDao(@Qualifier("reactiveDatabaseClient") DatabaseClient databaseClient,
+            ReactiveDataSourceProperties properties) {
+        this.databaseClient = databaseClient;
+        this.fetchSize = properties.getFetchSize();
+    }
+
+    public Mono<OnlineStoreProductSummary> findById(Long productId) {
+        return databaseClient.sql("select " + PRODUCT_COLUMNS + " from product p where p.product_id = :productId")
+                .bind("productId", productId)
+                .map(ReactiveProductDao::toSummary)
+                .one();
+    }
+
+    public Flux<OnlineStoreUser> findUsersByProductId(Long productId) {
+        return databaseClient.sql("select user_id, user_email, user_first_name, user_last_name, user_address"
+                + " from user where product_id = :productId")
+                .bind("productId", productId)
+                .map(ReactiveProductDao::toUser)
+                .all();
+    }
+
+    // Reads the join table first, like OnlineStoreCategoryDao, so only the product's own categories are touched
+    public Flux<OnlineStoreCategory> findCategoriesByProductId(Long productId) {
+        return databaseClient.sql("select c.category_id, c.category_name from category_product cp"
+                + " join category c on c.category_id = cp.category_id where cp.product_id = :productId")
+                .bind("productId", productId)
+                .map(ReactiveProductDao::toCategory)
+                .all();
+    }
+
+    // Keyset page: the products after the given ID (0 for the first page), in product ID order
+    public Flux<OnlineStoreProductSummary> findPage(long afterProductId, int limit) {
+        return databaseClient.sql("select " + PRODUCT_COLUMNS + " from product p"
+                + " where p.product_id > :afterProductId order by p.product_id limit :limit")
+                .bind("afterProductId", afterProductId)
+                .bind("limit", limit)
+                .map(ReactiveProductDao::toSummary)
+                .all();
+    }
+
+    // Keyset page of a category, seeking on the (category_id, product_id) index of the join table
+    public Flux<OnlineStoreProductSummary> findPageByCategoryId(Long categoryId, long afterProductId, int limit) {
+        return databaseClient.sql("select " + PRODUCT_COLUMNS + " from category_product cp"
+                + " join product p on p.product_id = cp.product_id"
+                + " where cp.category_id = :categoryId and cp.product_id > :afterProductId"
+                + " order by cp.product_id limit :limit")
+                .bind("categoryId", categoryId)
+                .bind("afterProductId", afterProductId)
+                .bind("limit", limit)
+                .map(ReactiveProductDao::toSummary)
+                .all();
+    }
+
+    public Mono<Boolean> existsCategoryById(Long categoryId) {
+        return databaseClient.sql("select 1 from category where category_id = :categoryId")
+                .bind("categoryId", categoryId)
+                .map(row -> Boolean.TRUE)
+                .first()
+                .defaultIfEmpty(Boolean.FALSE);
+    }
+
+    // Every product in ID order, fetched fetchSize rows at a time as the subscriber asks for more
+    public Flux<OnlineStoreProductSummary> streamAll() {
+        return databaseClient.sql("select " + PRODUCT_COLUMNS + " from product p order by p.product_id")
+                .filter(statement -> statement.fetchSize(fetchSize))
+                .map(ReactiveProductDao::toSummary)
+                .all();
+    }
+
+    private static OnlineStoreProductSummary toSummary(Readable row) {
+        return new OnlineStoreProductSummary(
+                row.get("product_id", Long.class),
+                row.get("product_name", String.class),
+                row.get("product_description", String.class),
+                row.get("product_price", Long.class),
+                row.get("product_quantity", Long.class));
+    }
+
+    private static OnlineStoreUser toUser(Readable row) {
+        OnlineStoreUser user = new OnlineStoreUser();
+        user.setUserId(row.get("user_id", Long.class));
+        user.setUserEmail(row.get("user_email", String.class));
+        user.setUserFirstName(row.get("user_first_name", String.class));
+        user.setUserLastName(row.get("user_last_name", String.class));
+        user.setUserAddress(row.get("user_address", String.class));
+        return user;
+    }
+
+    private static OnlineStoreCategory toCategory(Readable row) {
+        OnlineStoreCategory category = new OnlineStoreCategory();
+        category.setCategoryId(row.get("category_id", Long.class));
+        category.setCategoryName(row.get("category_name", String.class));
+        return category;
+    }
+}
@@ -0,0 +1,131 @@
+package online.store.datasource;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+// Sends connections of read-only transactions (@Transactional(readOnly = true)) to a healthy replica,
+// round robin, and everything else to the primary. Must be wrapped in a LazyConnectionDataSourceProxy:
+// the read-only flag of a transaction is only known once the transaction has begun, so the physical
+// connection has to be fetched on the first statement rather than when the transaction starts.
+public class ReadWriteRoutingDataSource extends AbstractDataSource implements DisposableBean {
+
+    private final DataSource primary;
+    private final List<Replica> replicas;
+    private final AtomicInteger nextReplica = new AtomicInteger();
+    private final ScheduledExecutorService healthChecker;
+
+    public ReadWriteRoutingDataSource(DataSource primary, List<DataSource> replicas, Duration healthCheckInterval) {
+        this.primary = primary;
+        this.replicas = replicas.stream().map(Replica::new).toList();
+
+        // Probe the replicas in the background; a replica that fails a probe gets no reads until it passes one
+        this.healthChecker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "replica-health-check");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long intervalMillis = healthCheckInterval.toMillis();
+        healthChecker.scheduleWithFixedDelay(this::checkReplicas, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return determineTargetDataSource().getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return determineTargetDataSource().getConnection(username, password);
+    }
+
+    // Unwrapping (e.g. to the HikariDataSource for pool metrics) resolves to the primary
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        if (iface.isInstance(this)) {
+            return iface.cast(this);
+        }
+        return primary.unwrap(iface);
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) throws SQLException {
+        return iface.isInstance(this) || primary.isWrapperFor(iface);
+    }
+
+    @Override
+    public void destroy() throws Exception {
+        healthChecker.shutdownNow();
+        for (Replica replica : replicas) {
+            if (replica.dataSource instanceof AutoCloseable closeable) {
+                closeable.close();
+            }
+        }
+    }
+
+    private DataSource determineTargetDataSource() {
+        if (TransactionSynchronizationManager.isCurrentTransactionReadOnly()
+                && !ReplicaRoutingContext.isPinnedToPrimary()) {
+            Replica replica = nextHealthyReplica();
+            if (replica != null) {
+                ReplicaRoutingContext.markReadFromReplica();
+                return replica.dataSource;
+            }
+            log.debug("No healthy replica, routing read to the primary");
+        }
+        return primary;
+    }
+
+    // Round robin over the replicas, skipping the unhealthy ones; null when none is healthy
+    private Replica nextHealthyReplica() {
+        int size = replicas.size();
+        int start = Math.floorMod(nextReplica.getAndIncrement(), Math.max(size, 1));
+        for (int i = 0; i < size; i++) {
+            Replica replica = replicas.get((start + i) % size);
+            if (replica.healthy) {
+                return replica;
+            }
+        }
+        return null;
+    }
+
+    private void checkReplicas() {
+        for (int i = 0; i < replicas.size(); i++) {
+            Replica replica = replicas.get(i);
+            boolean healthy;
+            try (Connection connection = replica.dataSource.getConnection()) {
+                healthy = connection.isValid(2);
+            } catch (SQLException | RuntimeException e) {
+                healthy = false;
+            }
+            if (healthy != replica.healthy) {
+                log.warn("Replica {} is now {}", i, healthy ? "healthy" : "unhealthy");
+            }
+            replica.healthy = healthy;
+        }
+    }
+
+    private static class Replica {
+
+        private final DataSource dataSource;
+        private volatile boolean healthy = true; // Optimistic until the first failed probe
+
+        private Replica(DataSource dataSource) {
+            this.dataSource = dataSource;
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package online.store.datasource;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+// Per-thread routing hint set by ReadYourWritesFilter: while it is set, read-only transactions
+// of the current request go to the primary so the client sees its own recent writes.
+// Work that continues a request on another thread carries the hint over with runWith.
+// It also records whether the current transaction has read from a replica, for callers that
+// must not keep what a lagging replica returned, such as the product cache.
+public final class ReplicaRoutingContext {
+
+    private static final ThreadLocal<Boolean> PIN_TO_PRIMARY = new ThreadLocal<>();
+    private static final Object READ_FROM_REPLICA = new Object(); // Transaction resource key, bound once a replica connection is handed out
+
+    // A piece of work that may throw, e.g. writing a response body
+    @FunctionalInterface
+    public interface Task<E extends Exception> {
+
+        void run() throws E;
+    }
+
+    private ReplicaRoutingContext() {
+    }
+
+    // Runs the task on the current thread with the given hint, captured with isPinnedToPrimary on the request thread
+    public static <E extends Exception> void runWith(boolean pinnedToPrimary, Task<E> task) throws E {
+        Boolean previous = PIN_TO_PRIMARY.get();
+        if (pinnedToPrimary) {
+            PIN_TO_PRIMARY.set(Boolean.TRUE);
+        } else {
+            PIN_TO_PRIMARY.remove();
+        }
+        try {
+            task.run();
+        } finally {
+            if (previous == null) {
+                PIN_TO_PRIMARY.remove();
+            } else {
+                PIN_TO_PRIMARY.set(previous);
+            }
+        }
+    }
+
+    static void pinToPrimary() {
+        PIN_TO_PRIMARY.set(Boolean.TRUE);
+    }
+
+    public static boolean isPinnedToPrimary() {
+        return PIN_TO_PRIMARY.get() != null;
+    }
+
+    static void clear() {
+        PIN_TO_PRIMARY.remove();
+    }
+
+    // Called by ReadWriteRoutingDataSource when it routes a connection of the current transaction to a replica
+    static void markReadFromReplica() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()
+                || TransactionSynchronizationManager.hasResource(READ_FROM_REPLICA)) {
+            return;
+        }
+        TransactionSynchronizationManager.bindResource(READ_FROM_REPLICA, Boolean.TRUE);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(READ_FROM_REPLICA);
+            }
+        });
+    }
+
+    // Whether the current transaction has read from a replica, which may not have caught up with the latest commits
+    public static boolean isReadFromReplica() {
+        return TransactionSynchronizationManager.hasResource(READ_FROM_REPLICA);
+    }
+}
@@ -3,12 +3,16 @@ package online.store.entity;
 import java.util.HashSet;
 import java.util.Set;
 
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.ManyToMany;
 import jakarta.persistence.Table;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.search.mapper.pojo.mapping.definition.annotation.FullTextField;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
 import lombok.ToString;
@@ -16,12 +20,15 @@ import lombok.ToString;
 @Entity // Indicates that this class is an entity to be mapped to a database table
 @Table(name = "category") // Specifies the name of the database table for this entity
 @Data // Generates boilerplate code for getters, setters, equals(), hashCode(), and toString() methods
+@Cacheable // Categories are reference data: read on every product detail, rarely written
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "category") // Sized in hibernate-cache.conf
 public class Category {
 
     @Id // Specifies that this field is the primary key for the entity
     @GeneratedValue(strategy = GenerationType.IDENTITY) // Specifies the strategy for generating the primary key value
     private Long categoryId; // Field to store the category ID (primary key)
 
+    @FullTextField // Indexed as part of every product document of the category, see CategorySearchReindexer
     private String categoryName; // Field to store the category name
     
     @ToString.Exclude // Excludes this field from the toString() method to prevent recursion
@@ -0,0 +1,43 @@
+package online.store.entity;
+
+import java.time.Instant;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.Data;
+
+@Entity // Indicates that this class is an entity to be mapped to a database table
+@Table(name = "change_event", // The outbox: one row per write, appended in the transaction of the write
+        indexes = {
+            @Index(name = "idx_change_event_occurred_at", columnList = "occurred_at"), // Serves the retention cleanup
+            @Index(name = "idx_change_event_stream_position", columnList = "stream_position", unique = true) // Serves the relay and the consumers
+        })
+@Data // Generates boilerplate code for getters, setters, equals(), hashCode(), and toString() methods
+public class ChangeEvent {
+
+    @Id // Allocated on insert, before the write commits, so IDs do not follow commit order
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long eventId; // Field to store the event ID (primary key)
+
+    @Column(name = "stream_position") // The consumers' resumable offset, in commit order
+    private Long streamPosition; // Field to store the position assigned by ChangeEventRelay once the event has committed, null before
+
+    @Column(nullable = false, length = 16)
+    private String aggregateType; // Field to store what changed: PRODUCT, USER or CATEGORY
+
+    @Column(nullable = false)
+    private Long aggregateId; // Field to store the ID of the product, user or category that changed
+
+    private Long productId; // Field to store the product the change belongs to
+
+    @Column(nullable = false, length = 16)
+    private String operation; // Field to store the kind of change: CREATED, UPDATED or DELETED
+
+    @Column(name = "occurred_at", nullable = false)
+    private Instant occurredAt; // Field to store when the change was written
+}
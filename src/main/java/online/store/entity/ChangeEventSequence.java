@@ -0,0 +1,25 @@
+package online.store.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Entity // Indicates that this class is an entity to be mapped to a database table
+@Table(name = "change_event_sequence") // A single row: the last stream position handed out to a change event
+@Data // Generates boilerplate code for getters, setters, equals(), hashCode(), and toString() methods
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChangeEventSequence {
+
+    public static final long STREAM = 1; // ID of the one row
+
+    @Id // Always STREAM; the row is locked while positions are assigned, which serializes the relays of all nodes
+    private Long sequenceId; // Field to store the row ID
+
+    @Column(nullable = false)
+    private Long lastPosition; // Field to store the highest stream position assigned so far
+}
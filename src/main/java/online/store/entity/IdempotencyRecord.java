@@ -0,0 +1,30 @@
+package online.store.entity;
+
+import java.time.Instant;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Lob;
+import jakarta.persistence.Table;
+import lombok.Data;
+
+@Entity // Indicates that this class is an entity to be mapped to a database table
+@Table(name = "idempotency_record", // The shared store of Idempotency-Key executions when several nodes serve the API
+        indexes = @Index(name = "idx_idempotency_record_created_at", columnList = "created_at")) // Serves the TTL cleanup
+@Data // Generates boilerplate code for getters, setters, equals(), hashCode(), and toString() methods
+public class IdempotencyRecord {
+
+    @Id // The scoped idempotency key; its uniqueness is what makes a second execution impossible
+    private String idempotencyKey; // Field to store the endpoint scope and the client's Idempotency-Key
+
+    @Column(nullable = false, length = 64)
+    private String fingerprint; // Field to store the SHA-256 (hex) of the request body the key was first used with
+
+    @Lob
+    private String responseBody; // Field to store the JSON response to replay, written in the same transaction as the change
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt; // Field to store when the key was first used
+}
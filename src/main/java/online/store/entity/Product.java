@@ -5,15 +5,27 @@ import java.util.Set;
 
 
 import jakarta.persistence.CascadeType;
+import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinTable;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToMany;
 import jakarta.persistence.OneToMany;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
+import jakarta.persistence.Version;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.search.mapper.pojo.mapping.definition.annotation.FullTextField;
+import org.hibernate.search.mapper.pojo.mapping.definition.annotation.Indexed;
+import org.hibernate.search.mapper.pojo.automaticindexing.ReindexOnUpdate;
+import org.hibernate.search.mapper.pojo.mapping.definition.annotation.IndexedEmbedded;
+import org.hibernate.search.mapper.pojo.mapping.definition.annotation.IndexingDependency;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
 import lombok.ToString;
@@ -21,17 +33,25 @@ import lombok.ToString;
 @Entity // Indicates that this class is an entity to be mapped to a database table
 @Table(name = "product") // Specifies the name of the database table for this entity
 @Data // Generates boilerplate code for getters, setters, equals(), hashCode(), and toString() methods
+@Indexed // Product documents are kept in the full-text index and updated whenever a transaction commits
 public class Product {
 	
 	@Id // Specifies that this field is the primary key for the entity
-	@GeneratedValue(strategy = GenerationType.IDENTITY) // Specifies the strategy for generating the primary key value
+	@GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "product_seq") // IDs come from a sequence so inserts can be JDBC batched
+	@SequenceGenerator(name = "product_seq", sequenceName = "product_seq", allocationSize = 50) // Hands out IDs in blocks of 50 per round trip
 	private Long productId; // Field to store the product ID (primary key)
 	
+	@FullTextField // Searchable through the product search
 	private String productName; // Field to store the product name
+	@FullTextField // Searchable through the product search
 	private String productDescription; // Field to store the product description
 	private Long productPrice; // Field to store the product price
 	private Long productQuantity; // Field to store the product quantity
 	
+	@Version // Optimistic lock version; also bumped when the product's users or categories change, and used as its ETag
+	@Column(nullable = false)
+	private Long productVersion; // Field to store the product version
+	
 	@ToString.Exclude // Excludes this field from the toString() method to prevent recursion
 	@EqualsAndHashCode.Exclude // Excludes this field from the equals() and hashCode() methods to prevent recursion
 	@OneToMany(mappedBy = "product", cascade = CascadeType.ALL, orphanRemoval = true) // Specifies a one-to-many relationship with User entity
@@ -39,11 +59,16 @@ public class Product {
 	
 	@ToString.Exclude // Excludes this field from the toString() method to prevent recursion
 	@EqualsAndHashCode.Exclude // Excludes this field from the equals() and hashCode() methods to prevent recursion
+	@IndexedEmbedded(includePaths = "categoryName") // Category names are copied into the product document
+	@IndexingDependency(reindexOnUpdate = ReindexOnUpdate.SHALLOW) // Linking and unlinking reindex the product; a rename is reindexed by CategorySearchReindexer
+	@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "product-categories") // The category IDs per product; the categories themselves come from the category region
+	@BatchSize(size = 50) // Uncached collections of the products in one session are loaded 50 at a time
 	 @ManyToMany
 	    @JoinTable(
 	        name = "category_product",
 	        joinColumns = @JoinColumn(name = "product_id"),
-	        inverseJoinColumns = @JoinColumn(name = "category_id")
+	        inverseJoinColumns = @JoinColumn(name = "category_id"),
+	        indexes = @Index(name = "idx_category_product_category", columnList = "category_id, product_id") // Serves browsing a category in product ID order
 	    )
 	    private Set<Category> categories = new HashSet<>();
 }
@@ -4,23 +4,28 @@ import jakarta.persistence.CascadeType;
 
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
 import lombok.ToString;
 
 @Entity // Indicates that this class is an entity to be mapped to a database table
-@Table(name = "user") // Specifies the name of the database table for this entity
+@Table(name = "user", // Specifies the name of the database table for this entity
+        indexes = @Index(name = "uk_user_registration_id", columnList = "registration_id", unique = true)) // A registration creates at most one user
 @Data // Generates boilerplate code for getters, setters, equals(), hashCode(), and toString() methods
 public class User {
 	
 	@Id // Specifies that this field is the primary key for the entity
-	@GeneratedValue(strategy = GenerationType.IDENTITY) // Specifies the strategy for generating the primary key value
+	@GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "user_seq") // IDs come from a sequence so inserts can be JDBC batched
+	@SequenceGenerator(name = "user_seq", sequenceName = "user_seq", allocationSize = 50) // Hands out IDs in blocks of 50 per round trip
 	private Long userId; // Field to store the user ID (primary key)
 	
 	@Column(name = "user_email") // Specifies the name of the database column for this field
@@ -30,9 +35,12 @@ public class User {
 	private String userLastName; // Field to store the user's last name
 	private String userAddress; // Field to store the user's address
 	
+	@Column(name = "registration_id", length = 36) // Only set for users created by an asynchronous registration
+	private String registrationId; // Field to store the ID of the registration that created the user
+	
 	@ToString.Exclude // Excludes this field from the toString() method to prevent recursion
 	@EqualsAndHashCode.Exclude // Excludes this field from the equals() and hashCode() methods to prevent recursion
-	@ManyToOne(cascade = CascadeType.ALL) // Specifies a one-to-many relationship with Product entity
+	@ManyToOne(cascade = CascadeType.ALL, fetch = FetchType.LAZY) // Specifies a many-to-one relationship with Product entity, loaded only when needed
 	@JoinColumn(name = "product_id")
     private Product product;
 }
@@ -0,0 +1,83 @@
+package online.store.mapping;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import org.springframework.stereotype.Component;
+
+import online.store.controller.model.OnlineStoreCategory;
+import online.store.controller.model.OnlineStoreProductData;
+import online.store.controller.model.OnlineStoreProductSummary;
+import online.store.controller.model.OnlineStoreUser;
+import online.store.entity.Category;
+import online.store.entity.Product;
+import online.store.entity.User;
+
+/*
+ * Maps the entities to the DTOs returned by the controller. Every mapping is plain getter/setter
+ * code, the same shape a compile-time mapper generator would emit: no reflection, no intermediate
+ * objects, and collections allocated once at their final size. The summary view never touches the
+ * users or categories, so it neither allocates for them nor initializes the lazy collections.
+ */
+@Component
+public class OnlineStoreProductMapper {
+
+    // Only the scalar product fields, for listings, search results and the export
+    public OnlineStoreProductSummary toSummary(Product product) {
+        return new OnlineStoreProductSummary(
+                product.getProductId(),
+                product.getProductName(),
+                product.getProductDescription(),
+                product.getProductPrice(),
+                product.getProductQuantity());
+    }
+
+    // The full product, including its users and categories
+    public OnlineStoreProductData toDetail(Product product) {
+        OnlineStoreProductData productData = new OnlineStoreProductData();
+        productData.setProductId(product.getProductId());
+        productData.setProductName(product.getProductName());
+        productData.setProductDescription(product.getProductDescription());
+        productData.setProductPrice(product.getProductPrice());
+        productData.setProductQuantity(product.getProductQuantity());
+        productData.setProductVersion(product.getProductVersion());
+        productData.setUsers(toUsers(product.getUsers()));
+        productData.setCategories(toCategories(product.getCategories()));
+        return productData;
+    }
+
+    public OnlineStoreUser toUser(User user) {
+        OnlineStoreUser userData = new OnlineStoreUser();
+        userData.setUserId(user.getUserId());
+        userData.setUserEmail(user.getUserEmail());
+        userData.setUserFirstName(user.getUserFirstName());
+        userData.setUserLastName(user.getUserLastName());
+        userData.setUserAddress(user.getUserAddress());
+        return userData;
+    }
+
+    public OnlineStoreCategory toCategory(Category category) {
+        OnlineStoreCategory categoryData = new OnlineStoreCategory();
+        categoryData.setCategoryId(category.getCategoryId());
+        categoryData.setCategoryName(category.getCategoryName());
+        return categoryData;
+    }
+
+    // The entity sets already guarantee uniqueness, so the DTOs go into lists sized up front
+    private List<OnlineStoreUser> toUsers(Set<User> users) {
+        List<OnlineStoreUser> result = new ArrayList<>(users.size());
+        for (User user : users) {
+            result.add(toUser(user));
+        }
+        return result;
+    }
+
+    private List<OnlineStoreCategory> toCategories(Set<Category> categories) {
+        List<OnlineStoreCategory> result = new ArrayList<>(categories.size());
+        for (Category category : categories) {
+            result.add(toCategory(category));
+        }
+        return result;
+    }
+}
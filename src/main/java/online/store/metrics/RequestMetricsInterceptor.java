@@ -0,0 +1,72 @@
+package online.store.metrics;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+@Component
+// Records, per endpoint, how many SQL statements a request executed and how many entities it loaded,
+// once per request even when it completes in an async dispatch.
+// Request latency itself is already timed by Spring Boot as http.server.requests.
+public class RequestMetricsInterceptor implements AsyncHandlerInterceptor {
+
+    private final MeterRegistry meterRegistry;
+
+    @Autowired
+    public RequestMetricsInterceptor(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        // The async dispatch that completes a request was already counted when its handler returned
+        if (request.getDispatcherType() != DispatcherType.ASYNC) {
+            RequestQueryStatistics.begin();
+        }
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+            Exception ex) {
+        if (request.getDispatcherType() != DispatcherType.ASYNC && !request.isAsyncStarted()) {
+            record(request, RequestQueryStatistics.end());
+        }
+    }
+
+    // Records the handler's statements once it returns; the async part of a request (the NDJSON export,
+    // a Mono or Flux of the reactive path) runs on another thread and is not counted
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response,
+            Object handler) {
+        record(request, RequestQueryStatistics.end());
+    }
+
+    private void record(HttpServletRequest request, RequestQueryStatistics statistics) {
+        if (statistics == null) {
+            return;
+        }
+
+        String uri = String.valueOf(request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE));
+        summary("online_store.request.sql.statements", "SQL statements executed per request", uri, request)
+                .record(statistics.getStatementCount());
+        summary("online_store.request.entities.loaded", "Entities loaded from result set rows per request", uri, request)
+                .record(statistics.getEntityLoadCount());
+    }
+
+    private DistributionSummary summary(String name, String description, String uri, HttpServletRequest request) {
+        return DistributionSummary.builder(name)
+                .description(description)
+                .tag("uri", uri)
+                .tag("method", request.getMethod())
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,49 @@
+package online.store.metrics;
+
+// Per-request counters of the SQL statements executed and entities loaded by Hibernate. The counters
+// live in a ThreadLocal that RequestMetricsInterceptor opens at the start of a request and closes at
+// the end; work done outside a request (or on another thread) is simply not counted.
+public final class RequestQueryStatistics {
+
+    private static final ThreadLocal<RequestQueryStatistics> CURRENT = new ThreadLocal<>();
+
+    private long statementCount; // SQL statements prepared by Hibernate during the request
+    private long entityLoadCount; // Entities materialized from result set rows during the request
+
+    private RequestQueryStatistics() {
+    }
+
+    // Starts counting for the request running on the current thread
+    static void begin() {
+        CURRENT.set(new RequestQueryStatistics());
+    }
+
+    // Stops counting and returns the counters of the current request, or null if none was started
+    static RequestQueryStatistics end() {
+        RequestQueryStatistics statistics = CURRENT.get();
+        CURRENT.remove();
+        return statistics;
+    }
+
+    static void statementExecuted() {
+        RequestQueryStatistics statistics = CURRENT.get();
+        if (statistics != null) {
+            statistics.statementCount++;
+        }
+    }
+
+    static void entityLoaded() {
+        RequestQueryStatistics statistics = CURRENT.get();
+        if (statistics != null) {
+            statistics.entityLoadCount++;
+        }
+    }
+
+    long getStatementCount() {
+        return statementCount;
+    }
+
+    long getEntityLoadCount() {
+        return entityLoadCount;
+    }
+}
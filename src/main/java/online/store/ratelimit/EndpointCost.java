@@ -0,0 +1,9 @@
+package online.store.ratelimit;
+
+// How expensive an endpoint is to serve; each class has its own per-client rate limit
+public enum EndpointCost {
+
+    CHEAP, // Single-row or in-memory reads, mostly served from a cache
+    STANDARD, // Ordinary single-entity writes and reads
+    EXPENSIVE // Listings, search, export and bulk writes that touch many rows
+}
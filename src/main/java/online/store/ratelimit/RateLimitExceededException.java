@@ -0,0 +1,17 @@
+package online.store.ratelimit;
+
+import lombok.Getter;
+
+// A client used up its requests for an endpoint class; answered with 429 and a Retry-After header
+@Getter
+public class RateLimitExceededException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final long retryAfterSeconds; // Whole seconds until the client's next request would be admitted
+
+    public RateLimitExceededException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+}
@@ -0,0 +1,197 @@
+package online.store.ratelimit;
+
+import java.security.Principal;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import online.store.config.RateLimitProperties;
+
+@Component
+@ConditionalOnProperty(prefix = "online-store.rate-limit", name = "enabled", havingValue = "true", matchIfMissing = true)
+// Admission control in front of OnlineStoreController. Each request is first shed with 503 when the
+// service is saturated: too many requests in progress, or requests queueing for a database connection.
+// Expensive endpoints are shed first so the cheap ones keep working under load. Only a request that is
+// not shed takes a token from its client's bucket for the cost class of the endpoint (429 when empty),
+// so load the client did not cause never eats into its quota.
+// Clients are told apart by their authenticated principal, otherwise by their remote address; the
+// client header is only believed when the request comes from one of the configured trusted proxies.
+// Every decision is counted as online_store.ratelimit.decisions, tagged by cost class and outcome.
+public class RateLimitInterceptor implements AsyncHandlerInterceptor {
+
+    private static final String ADMITTED_ATTRIBUTE = RateLimitInterceptor.class.getName() + ".admitted";
+
+    private final RateLimitProperties properties;
+    private final ObjectProvider<HikariDataSource> dataSources;
+    private final Set<String> trustedProxies; // Remote addresses whose client header is believed
+    private final Map<EndpointCost, TokenBucketRateLimiter> limiters = new EnumMap<>(EndpointCost.class);
+    private final Map<EndpointCost, Map<Decision, Counter>> decisionCounters = new EnumMap<>(EndpointCost.class);
+    private final AtomicInteger inFlight = new AtomicInteger(); // Admitted requests that have not completed yet
+    private volatile List<HikariDataSource> pools; // The Hikari pool beans, resolved on first use
+
+    private enum Decision {
+        ALLOWED, RATE_LIMITED, SHED_IN_FLIGHT, SHED_POOL_WAIT
+    }
+
+    @Autowired
+    public RateLimitInterceptor(RateLimitProperties properties, ObjectProvider<HikariDataSource> dataSources,
+            MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.dataSources = dataSources;
+        this.trustedProxies = Set.copyOf(properties.getTrustedProxies());
+
+        // Everything is created up front, so a decision never allocates or looks up a meter
+        for (EndpointCost cost : EndpointCost.values()) {
+            RateLimitProperties.Limit limit = properties.limitFor(cost);
+            TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(limit.getPermitsPerSecond(), limit.getBurst(),
+                    properties.getMaxClients());
+            limiters.put(cost, limiter);
+
+            Map<Decision, Counter> counters = new EnumMap<>(Decision.class);
+            for (Decision decision : Decision.values()) {
+                counters.put(decision, Counter.builder("online_store.ratelimit.decisions")
+                        .description("Admission decisions of the rate limiter and load shedder")
+                        .tag("cost", cost.name().toLowerCase())
+                        .tag("outcome", decision.name().toLowerCase())
+                        .register(meterRegistry));
+            }
+            decisionCounters.put(cost, counters);
+
+            Gauge.builder("online_store.ratelimit.clients", limiter, TokenBucketRateLimiter::size)
+                    .description("Clients with a partly used token bucket")
+                    .tag("cost", cost.name().toLowerCase())
+                    .register(meterRegistry);
+        }
+        Gauge.builder("online_store.ratelimit.in_flight", inFlight, AtomicInteger::get)
+                .description("Admitted requests in progress")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        // The async dispatch that completes a streaming response was admitted with the original request
+        if (request.getDispatcherType() == DispatcherType.ASYNC || !(handler instanceof HandlerMethod handlerMethod)) {
+            return true;
+        }
+
+        EndpointCost cost = costOf(handlerMethod);
+        Map<Decision, Counter> counters = decisionCounters.get(cost);
+
+        // Shed before taking a token, so a request the server turns away does not use up the client's quota
+        int current = inFlight.incrementAndGet();
+        int maxInFlight = cost == EndpointCost.EXPENSIVE ? properties.getMaxInFlight() / 2 : properties.getMaxInFlight();
+        if (current > maxInFlight) {
+            inFlight.decrementAndGet();
+            counters.get(Decision.SHED_IN_FLIGHT).increment();
+            throw new RejectedExecutionException("Too many requests in progress, try again later.");
+        }
+        if (cost != EndpointCost.CHEAP && poolWaiters() > properties.getMaxPoolWaiters()) {
+            inFlight.decrementAndGet();
+            counters.get(Decision.SHED_POOL_WAIT).increment();
+            throw new RejectedExecutionException("The database is saturated, try again later.");
+        }
+
+        long waitNanos = limiters.get(cost).tryAcquire(clientOf(request), System.nanoTime());
+        if (waitNanos > 0) {
+            inFlight.decrementAndGet();
+            counters.get(Decision.RATE_LIMITED).increment();
+            throw new RateLimitExceededException("Rate limit exceeded for " + cost.name().toLowerCase()
+                    + " requests.", Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + 999_999_999L)));
+        }
+
+        request.setAttribute(ADMITTED_ATTRIBUTE, Boolean.TRUE);
+        counters.get(Decision.ALLOWED).increment();
+        return true;
+    }
+
+    // Called once per admitted request: after the handler, or after the async dispatch of a streaming response
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+            Exception ex) {
+        release(request);
+    }
+
+    // An async request (long poll, SSE stream, large export) mostly waits without a thread, so it stops counting
+    // as in progress once the handler returns; otherwise a few hundred idle subscribers would shed every request
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response,
+            Object handler) {
+        release(request);
+    }
+
+    // Drops the buckets of clients that have been idle long enough for them to refill
+    @Scheduled(fixedDelayString = "${online-store.rate-limit.idle-bucket-eviction:PT1M}")
+    public void evictIdleBuckets() {
+        long now = System.nanoTime();
+        limiters.values().forEach(limiter -> limiter.evictIdle(now));
+    }
+
+    private void release(HttpServletRequest request) {
+        if (request.getAttribute(ADMITTED_ATTRIBUTE) != null) {
+            request.removeAttribute(ADMITTED_ATTRIBUTE);
+            inFlight.decrementAndGet();
+        }
+    }
+
+    private static EndpointCost costOf(HandlerMethod handlerMethod) {
+        RateLimited rateLimited = handlerMethod.getMethodAnnotation(RateLimited.class);
+        return rateLimited == null ? EndpointCost.STANDARD : rateLimited.value();
+    }
+
+    // The key of the client's bucket; the prefixes keep a header value from posing as a user or an address
+    private String clientOf(HttpServletRequest request) {
+        Principal principal = request.getUserPrincipal();
+        if (Objects.nonNull(principal)) {
+            return "user:" + principal.getName();
+        }
+
+        String remoteAddress = request.getRemoteAddr();
+        if (trustedProxies.contains(remoteAddress)) {
+            String client = request.getHeader(properties.getClientHeader());
+            if (Objects.nonNull(client) && !client.isBlank()) {
+                return "client:" + client;
+            }
+        }
+        return "address:" + remoteAddress;
+    }
+
+    // Threads currently queued for a connection across the application's Hikari pools
+    private int poolWaiters() {
+        List<HikariDataSource> resolved = pools;
+        if (resolved == null) {
+            resolved = dataSources.orderedStream().toList();
+            pools = resolved;
+        }
+
+        int waiters = 0;
+        for (HikariDataSource dataSource : resolved) {
+            HikariPoolMXBean pool = dataSource.getHikariPoolMXBean();
+            if (pool != null) {
+                waiters += pool.getThreadsAwaitingConnection();
+            }
+        }
+        return waiters;
+    }
+}
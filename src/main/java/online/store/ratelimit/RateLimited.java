@@ -0,0 +1,14 @@
+package online.store.ratelimit;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+// Puts a controller method in a cost class; methods without it are EndpointCost.STANDARD
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface RateLimited {
+
+    EndpointCost value();
+}
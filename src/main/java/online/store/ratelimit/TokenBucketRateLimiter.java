@@ -0,0 +1,85 @@
+package online.store.ratelimit;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+ * Per-key token buckets implemented as the generic cell rate algorithm (GCRA): instead of a token
+ * count and a refill timestamp, each key keeps a single "theoretical arrival time" (TAT) in an
+ * AtomicLong. A request is admitted when the TAT is no further in the future than the burst
+ * allows, and admitting it pushes the TAT one emission interval further. The check is a
+ * compare-and-set loop on the key's own counter, so clients never contend with each other and
+ * nothing is ever locked; the ConcurrentHashMap lookup is the only shared structure.
+ * The number of keys is capped: once the map is full, even after dropping idle keys, new keys
+ * share one overflow bucket, so a flood of made-up keys cannot exhaust the heap.
+ */
+public class TokenBucketRateLimiter {
+
+    private final long emissionIntervalNanos; // Time one token takes to refill
+    private final long burstToleranceNanos; // How far ahead of now the TAT may run, i.e. (burst - 1) tokens
+    private final int maxKeys; // Keys tracked at most before new keys share the overflow bucket
+    private final ConcurrentMap<String, AtomicLong> buckets = new ConcurrentHashMap<>(); // TAT per key, in System.nanoTime() units
+    private final AtomicLong overflow; // TAT shared by the keys that did not fit in the map
+
+    public TokenBucketRateLimiter(double permitsPerSecond, int burst, int maxKeys) {
+        if (permitsPerSecond <= 0 || burst < 1) {
+            throw new IllegalArgumentException("A rate limit needs a positive rate and a burst of at least 1 but got "
+                    + permitsPerSecond + "/s with burst " + burst + ".");
+        }
+        if (maxKeys < 1) {
+            throw new IllegalArgumentException("A rate limiter needs room for at least 1 key but got " + maxKeys + ".");
+        }
+        this.maxKeys = maxKeys;
+        this.overflow = new AtomicLong(System.nanoTime());
+        this.emissionIntervalNanos = (long) (1_000_000_000L / permitsPerSecond);
+        this.burstToleranceNanos = emissionIntervalNanos * (burst - 1);
+    }
+
+    /*
+     * Takes a token from the key's bucket. Returns 0 when the request is admitted, otherwise the
+     * number of nanoseconds until a token will be available (nothing is taken in that case).
+     */
+    public long tryAcquire(String key, long nowNanos) {
+        AtomicLong theoreticalArrival = buckets.get(key);
+        if (theoreticalArrival == null) {
+            theoreticalArrival = bucketOf(key, nowNanos);
+        }
+
+        while (true) {
+            long current = theoreticalArrival.get();
+            long start = Math.max(current, nowNanos);
+            long waitNanos = start - nowNanos - burstToleranceNanos;
+            if (waitNanos > 0) {
+                return waitNanos;
+            }
+            if (theoreticalArrival.compareAndSet(current, start + emissionIntervalNanos)) {
+                return 0;
+            }
+        }
+    }
+
+    /*
+     * Forgets the keys whose bucket has refilled completely: they would be recreated in exactly
+     * the same state. A request racing with the removal may get one extra token, nothing worse.
+     */
+    public void evictIdle(long nowNanos) {
+        buckets.values().removeIf(theoreticalArrival -> theoreticalArrival.get() <= nowNanos);
+    }
+
+    // Creates the key's bucket, or hands out the overflow bucket when the map is full
+    private AtomicLong bucketOf(String key, long nowNanos) {
+        if (buckets.size() >= maxKeys) {
+            evictIdle(nowNanos);
+            if (buckets.size() >= maxKeys) {
+                return overflow;
+            }
+        }
+        return buckets.computeIfAbsent(key, k -> new AtomicLong(nowNanos));
+    }
+
+    // Number of keys currently tracked
+    public int size() {
+        return buckets.size();
+    }
+}
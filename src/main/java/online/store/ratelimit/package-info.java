@@ -0,0 +1 @@
+package online.store.ratelimit;
\ No newline at end of file
@@ -0,0 +1,28 @@
+package online.store.service;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+// Runs side effects (cache eviction, in-memory bookkeeping) only once the surrounding transaction has committed
+public final class AfterCommit {
+
+    private AfterCommit() {
+    }
+
+    /*
+     * Runs the action after the current transaction commits. When no transaction is active
+     * the action runs immediately. If the transaction rolls back the action never runs.
+     */
+    public static void execute(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package online.store.service;
+
+// A request the client got wrong, e.g. a malformed page cursor or an out of range page size; answered with 400.
+// Kept apart from IllegalArgumentException so a failed check inside the application still surfaces as a 500.
+public class BadRequestException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public BadRequestException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,105 @@
+package online.store.service;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.hibernate.search.mapper.orm.Search;
+import org.hibernate.search.mapper.orm.work.SearchIndexingPlan;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.extern.slf4j.Slf4j;
+import online.store.dao.OnlineStoreProductDao;
+import online.store.entity.Product;
+
+@Service
+@Slf4j
+/*
+ * Brings the search documents of a category's products up to date after the category was renamed.
+ * Product.categories is indexed with ReindexOnUpdate.SHALLOW, so a rename no longer reindexes every
+ * product of the category inside the renaming transaction. Instead the rename schedules the category
+ * here once it has committed, and one background thread reindexes its products chunk by chunk, one
+ * short transaction per chunk. Renames of a category that is already waiting are coalesced.
+ */
+public class CategorySearchReindexer {
+
+    private final OnlineStoreProductDao onlineStoreProductDao;
+    private final TransactionTemplate transactionTemplate;
+    private final int chunkSize; // Products reindexed per transaction
+    private final ThreadPoolExecutor executor; // Reindexes one category at a time
+    private final Set<Long> scheduled = ConcurrentHashMap.newKeySet(); // Categories waiting to be reindexed
+
+    @PersistenceContext // Used to add the reloaded products to the indexing plan
+    private EntityManager entityManager;
+
+    @Autowired
+    public CategorySearchReindexer(OnlineStoreProductDao onlineStoreProductDao,
+            PlatformTransactionManager transactionManager,
+            @Value("${online-store.search.reindex-chunk-size:500}") int chunkSize) {
+        this.onlineStoreProductDao = onlineStoreProductDao;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.chunkSize = chunkSize;
+        this.executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(),
+                runnable -> new Thread(runnable, "category-search-reindexer"));
+    }
+
+    // Abandons the categories still waiting; reindex-on-startup repairs the index if needed
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        executor.shutdownNow();
+        executor.awaitTermination(30, TimeUnit.SECONDS);
+    }
+
+    // Reindexes the products of the category once the current transaction has committed
+    public void reindexCategoryAfterCommit(Long categoryId) {
+        AfterCommit.execute(() -> {
+            if (scheduled.add(categoryId)) {
+                executor.execute(() -> reindexCategory(categoryId));
+            }
+        });
+    }
+
+    // Walks the category in product ID order; a rename arriving meanwhile schedules the category again
+    private void reindexCategory(Long categoryId) {
+        scheduled.remove(categoryId);
+        long afterProductId = 0;
+        long reindexed = 0;
+        try {
+            List<Long> chunk;
+            do {
+                if (Thread.currentThread().isInterrupted()) {
+                    return;
+                }
+                chunk = onlineStoreProductDao.findProductIdsByCategoryIdAfter(categoryId, afterProductId, chunkSize);
+                if (!chunk.isEmpty()) {
+                    List<Long> productIds = chunk;
+                    transactionTemplate.executeWithoutResult(status -> reindexProducts(productIds));
+                    afterProductId = chunk.get(chunk.size() - 1);
+                    reindexed += chunk.size();
+                }
+            } while (chunk.size() == chunkSize);
+            log.info("Reindexed {} products of renamed category with ID={}", reindexed, categoryId);
+        } catch (RuntimeException e) {
+            log.error("Reindexing the products of category with ID={} failed after {} products", categoryId,
+                    reindexed, e);
+        }
+    }
+
+    // The documents are written when the transaction commits
+    private void reindexProducts(List<Long> productIds) {
+        SearchIndexingPlan indexingPlan = Search.session(entityManager).indexingPlan();
+        for (Product product : onlineStoreProductDao.findAllById(productIds)) {
+            indexingPlan.addOrUpdate(product);
+        }
+    }
+}
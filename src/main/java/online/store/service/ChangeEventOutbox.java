@@ -0,0 +1,87 @@
+package online.store.service;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import online.store.controller.model.OnlineStoreChangeEvent.AggregateType;
+import online.store.controller.model.OnlineStoreChangeEvent.Operation;
+
+@Service
+// The write side of the change event stream. Writes report their changes here and the changes are
+// inserted into the change_event table as one JDBC batch just before the transaction commits, so
+// they commit or roll back with the write itself. The rows are inserted without a stream position:
+// ChangeEventRelay assigns it once they have committed, so a slow commit cannot be overtaken.
+public class ChangeEventOutbox {
+
+    private static final String INSERT_SQL = "insert into change_event"
+            + " (aggregate_type, aggregate_id, product_id, operation, occurred_at) values (?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    // One change to append: what changed, its ID, the product it belongs to and how it changed
+    public record Change(AggregateType aggregateType, Long aggregateId, Long productId, Operation operation) {
+    }
+
+    @Autowired
+    public ChangeEventOutbox(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public void append(AggregateType aggregateType, Long aggregateId, Long productId, Operation operation) {
+        appendAll(List.of(new Change(aggregateType, aggregateId, productId, operation)));
+    }
+
+    // Queues changes for the current transaction; there must be one, or the event could outlive a failed write
+    @SuppressWarnings("unchecked")
+    public void appendAll(List<Change> changes) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("Change events must be appended inside the transaction of the write.");
+        }
+        if (changes.isEmpty()) {
+            return;
+        }
+
+        List<Change> pending = (List<Change>) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            List<Change> transactionChanges = new ArrayList<>();
+            TransactionSynchronizationManager.bindResource(this, transactionChanges);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void beforeCommit(boolean readOnly) {
+                    insert(transactionChanges);
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(ChangeEventOutbox.this);
+                }
+            });
+            pending = transactionChanges;
+        }
+        pending.addAll(changes);
+    }
+
+    private void insert(List<Change> changes) {
+        Timestamp occurredAt = Timestamp.from(Instant.now());
+        jdbcTemplate.batchUpdate(INSERT_SQL, changes, changes.size(), (statement, change) -> {
+            statement.setString(1, change.aggregateType().name());
+            statement.setLong(2, change.aggregateId());
+            if (change.productId() == null) {
+                statement.setNull(3, Types.BIGINT);
+            } else {
+                statement.setLong(3, change.productId());
+            }
+            statement.setString(4, change.operation().name());
+            statement.setTimestamp(5, occurredAt);
+        });
+    }
+}
@@ -0,0 +1,326 @@
+package online.store.service;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import online.store.controller.model.OnlineStoreChangeBatch;
+import online.store.controller.model.OnlineStoreChangeEvent;
+import online.store.controller.model.OnlineStoreChangeEvent.AggregateType;
+import online.store.controller.model.OnlineStoreChangeEvent.Operation;
+import online.store.dao.ChangeEventDao;
+import online.store.dao.ChangeEventSequenceDao;
+import online.store.entity.ChangeEvent;
+import online.store.entity.ChangeEventSequence;
+
+@Service
+@Slf4j
+/*
+ * The read side of the change event stream. Event IDs are allocated before the writes commit, so
+ * they do not follow commit order, and a consumer offset based on them could pass an event that
+ * commits later. Instead, a scheduled poller gives the committed events a stream position, which
+ * is the consumers' offset: under a lock on the single change_event_sequence row, so the relays
+ * of all nodes take turns and a position only becomes visible once every lower position has.
+ * The stream has no gaps to wait for or skip. The poller then reads the newly positioned events,
+ * keeps the most recent ones in memory and wakes up the long-polling and SSE consumers.
+ * Every node relays from the shared database on its own; no broker is involved.
+ */
+public class ChangeEventRelay {
+
+    private static final int MAX_WAIT_SECONDS = 60;
+
+    private final ChangeEventDao changeEventDao;
+    private final ChangeEventSequenceDao changeEventSequenceDao;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize; // Events read per poll, and the most returned to a consumer at once
+    private final int tailCapacity; // Most recent events kept in memory for consumers that are up to date
+    private final Duration retention; // How long events are kept in the outbox
+    private final long sseTimeoutMillis; // How long an SSE stream stays open before the client must reconnect
+
+    private volatile List<OnlineStoreChangeEvent> tail = List.of(); // Most recent relayed events, in ID order
+    private volatile long relayedUpTo; // Highest relayed stream position
+    private volatile long oldestRetained; // Lowest stream position still in the outbox
+
+    private final Set<Waiter> waiters = ConcurrentHashMap.newKeySet(); // Long-poll requests waiting for events
+    private final Set<Subscription> subscriptions = ConcurrentHashMap.newKeySet(); // Open SSE streams
+    private final ExecutorService deliveryExecutor = Executors.newVirtualThreadPerTaskExecutor(); // Writes to SSE streams
+
+    private record Waiter(long after, int limit, CompletableFuture<List<OnlineStoreChangeEvent>> events) {
+    }
+
+    @Autowired
+    public ChangeEventRelay(ChangeEventDao changeEventDao, ChangeEventSequenceDao changeEventSequenceDao,
+            PlatformTransactionManager transactionManager,
+            @Value("${online-store.changes.batch-size:500}") int batchSize,
+            @Value("${online-store.changes.tail-capacity:10000}") int tailCapacity,
+            @Value("${online-store.changes.retention:7d}") Duration retention,
+            @Value("${online-store.changes.sse-timeout:30m}") Duration sseTimeout) {
+        this.changeEventDao = changeEventDao;
+        this.changeEventSequenceDao = changeEventSequenceDao;
+        // Read-write transactions keep the relay on the primary, where the positions are assigned
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.tailCapacity = tailCapacity;
+        this.retention = retention;
+        this.sseTimeoutMillis = sseTimeout.toMillis();
+    }
+
+    // Starts relaying after the events already in the outbox; consumers read those from the database
+    @PostConstruct
+    public void start() {
+        relayedUpTo = transactionTemplate.execute(status -> changeEventDao.findMaxStreamPosition()).orElse(0L);
+        oldestRetained = transactionTemplate.execute(status -> changeEventDao.findMinStreamPosition())
+                .orElse(relayedUpTo + 1);
+        log.info("Relaying change events after position {}", relayedUpTo);
+    }
+
+    @PreDestroy
+    public void stop() {
+        subscriptions.forEach(subscription -> subscription.emitter.complete());
+        deliveryExecutor.shutdownNow();
+    }
+
+    // The offset of the newest relayed event, where a consumer that only wants new events starts
+    public long currentOffset() {
+        return relayedUpTo;
+    }
+
+    /*
+     * Returns up to limit events after the given offset. Consumers at the tail are served from
+     * memory, consumers further behind from the outbox table. An offset older than the retention
+     * period is rejected (409): the consumer has missed events and must resynchronize.
+     */
+    public List<OnlineStoreChangeEvent> readAfter(long after, int limit) {
+        if (after + 1 < oldestRetained) {
+            throw new ConflictException("Offset " + after + " is older than the retained change events,"
+                    + " resynchronize and continue from offset " + relayedUpTo + ".");
+        }
+
+        List<OnlineStoreChangeEvent> events = tail;
+        long upTo = relayedUpTo;
+        if (after >= upTo) {
+            return List.of();
+        }
+
+        if (!events.isEmpty() && after >= events.get(0).getEventId() - 1) {
+            int from = firstIndexAfter(events, after);
+            return List.copyOf(events.subList(from, Math.min(events.size(), from + limit)));
+        }
+
+        return transactionTemplate.execute(status -> changeEventDao
+                .findByStreamPositionGreaterThanAndStreamPositionLessThanEqualOrderByStreamPositionAsc(after, upTo,
+                        PageRequest.of(0, limit))
+                .stream().map(ChangeEventRelay::toChangeEvent).toList());
+    }
+
+    /*
+     * A long poll: returns the events after the offset at once if there are any, otherwise waits up
+     * to waitSeconds for the next ones and returns an empty batch if none arrive. Without an offset
+     * the consumer starts at the current end of the stream.
+     */
+    public CompletableFuture<OnlineStoreChangeBatch> poll(Long after, int limit, int waitSeconds) {
+        if (limit < 1 || limit > batchSize) {
+            throw new BadRequestException("The limit must be between 1 and " + batchSize + " but was " + limit + ".");
+        }
+        if (waitSeconds < 0 || waitSeconds > MAX_WAIT_SECONDS) {
+            throw new BadRequestException("The wait must be between 0 and " + MAX_WAIT_SECONDS
+                    + " seconds but was " + waitSeconds + ".");
+        }
+        long offset = Objects.isNull(after) ? relayedUpTo : after;
+
+        CompletableFuture<List<OnlineStoreChangeEvent>> events = waitSeconds == 0
+                ? CompletableFuture.completedFuture(readAfter(offset, limit))
+                : awaitAfter(offset, limit).completeOnTimeout(List.of(), waitSeconds, TimeUnit.SECONDS);
+        return events.thenApply(batch -> new OnlineStoreChangeBatch(batch,
+                batch.isEmpty() ? offset : batch.get(batch.size() - 1).getEventId()));
+    }
+
+    // Completes with the events after the offset as soon as there are any
+    public CompletableFuture<List<OnlineStoreChangeEvent>> awaitAfter(long after, int limit) {
+        Waiter waiter = new Waiter(after, limit, new CompletableFuture<>());
+        // Register before looking, so events relayed in between are not missed
+        waiters.add(waiter);
+        waiter.events().whenComplete((events, failure) -> waiters.remove(waiter));
+
+        complete(waiter);
+        return waiter.events();
+    }
+
+    // Opens an SSE stream that sends every event after the offset, then follows new events as they are relayed
+    public SseEmitter subscribe(long after) {
+        // Fail fast (409) for an expired offset instead of opening a stream that would error right away
+        readAfter(after, 1);
+
+        SseEmitter emitter = new SseEmitter(sseTimeoutMillis);
+        Subscription subscription = new Subscription(emitter, after);
+        subscriptions.add(subscription);
+        emitter.onCompletion(() -> subscriptions.remove(subscription));
+        emitter.onTimeout(() -> subscriptions.remove(subscription));
+        emitter.onError(failure -> subscriptions.remove(subscription));
+
+        deliveryExecutor.execute(subscription::deliver);
+        return emitter;
+    }
+
+    // Positions the newly committed events, then reads the next batch and hands it to the waiting consumers
+    @Scheduled(fixedDelayString = "${online-store.changes.poll-interval:PT0.2S}")
+    public void relay() {
+        transactionTemplate.executeWithoutResult(status -> assignPositions());
+
+        long from = relayedUpTo;
+        List<OnlineStoreChangeEvent> events = transactionTemplate.execute(status -> changeEventDao
+                .findByStreamPositionGreaterThanOrderByStreamPositionAsc(from, PageRequest.of(0, batchSize))
+                .stream().map(ChangeEventRelay::toChangeEvent).toList());
+
+        if (!events.isEmpty()) {
+            publish(events);
+        }
+    }
+
+    // Drops the events past the retention period; consumers that were further behind must resynchronize
+    @Scheduled(fixedDelayString = "${online-store.changes.cleanup-interval:PT1H}")
+    public void deleteExpiredEvents() {
+        int deleted = transactionTemplate.execute(
+                status -> changeEventDao.deleteOccurredBefore(Instant.now().minus(retention)));
+        oldestRetained = transactionTemplate.execute(status -> changeEventDao.findMinStreamPosition())
+                .orElse(relayedUpTo + 1);
+        log.info("Deleted {} expired change events", deleted);
+    }
+
+    /*
+     * Gives the committed events without a position the next positions, in event ID order. The
+     * sequence row stays locked until the transaction commits, so positions are assigned by one
+     * relay at a time and become visible in order. An event that commits while this runs is left
+     * for the next round and gets a higher position. The row is created on first use when the
+     * schema did not come from the migrations.
+     */
+    private void assignPositions() {
+        ChangeEventSequence sequence = changeEventSequenceDao.findWithLockBySequenceId(ChangeEventSequence.STREAM)
+                .orElseGet(() -> changeEventSequenceDao.save(new ChangeEventSequence(ChangeEventSequence.STREAM, 0L)));
+        List<ChangeEvent> unpositioned = changeEventDao.findByStreamPositionIsNullOrderByEventIdAsc(
+                PageRequest.of(0, batchSize));
+
+        long position = sequence.getLastPosition();
+        for (ChangeEvent event : unpositioned) {
+            event.setStreamPosition(++position);
+        }
+        sequence.setLastPosition(position);
+    }
+
+    private void publish(List<OnlineStoreChangeEvent> accepted) {
+        // Copy-on-write: readers never lock, the poller is the only writer
+        List<OnlineStoreChangeEvent> current = tail;
+        int keep = Math.max(0, Math.min(current.size(), tailCapacity - accepted.size()));
+        List<OnlineStoreChangeEvent> next = new ArrayList<>(keep + accepted.size());
+        next.addAll(current.subList(current.size() - keep, current.size()));
+        next.addAll(accepted.subList(Math.max(0, accepted.size() - tailCapacity), accepted.size()));
+
+        // The tail is replaced before the offset moves, so a reader that sees the new offset also sees its events
+        tail = List.copyOf(next);
+        relayedUpTo = accepted.get(accepted.size() - 1).getEventId();
+
+        for (Waiter waiter : waiters) {
+            complete(waiter);
+        }
+        for (Subscription subscription : subscriptions) {
+            deliveryExecutor.execute(subscription::deliver);
+        }
+    }
+
+    // Completes the waiter if there are events after its offset, or with the error if its offset has expired
+    private void complete(Waiter waiter) {
+        try {
+            List<OnlineStoreChangeEvent> events = readAfter(waiter.after(), waiter.limit());
+            if (!events.isEmpty()) {
+                waiter.events().complete(events);
+            }
+        } catch (RuntimeException e) {
+            waiter.events().completeExceptionally(e);
+        }
+    }
+
+    private static int firstIndexAfter(List<OnlineStoreChangeEvent> events, long after) {
+        int low = 0;
+        int high = events.size();
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (events.get(middle).getEventId() <= after) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private static OnlineStoreChangeEvent toChangeEvent(ChangeEvent event) {
+        return new OnlineStoreChangeEvent(event.getStreamPosition(), AggregateType.valueOf(event.getAggregateType()),
+                event.getAggregateId(), event.getProductId(), Operation.valueOf(event.getOperation()),
+                event.getOccurredAt());
+    }
+
+    // One SSE stream. Deliveries may be requested from several threads; one at a time sends, in offset order.
+    private class Subscription {
+
+        private final SseEmitter emitter;
+        private final ReentrantLock lock = new ReentrantLock();
+        private final AtomicBoolean pending = new AtomicBoolean();
+        private long lastSent; // Offset of the last event sent, guarded by lock
+
+        Subscription(SseEmitter emitter, long after) {
+            this.emitter = emitter;
+            this.lastSent = after;
+        }
+
+        // Sends everything after lastSent; a request arriving while another thread sends is picked up by that thread
+        void deliver() {
+            pending.set(true);
+            while (pending.get() && lock.tryLock()) {
+                try {
+                    pending.set(false);
+                    List<OnlineStoreChangeEvent> events;
+                    while (!(events = readAfter(lastSent, batchSize)).isEmpty()) {
+                        for (OnlineStoreChangeEvent event : events) {
+                            emitter.send(SseEmitter.event()
+                                    .id(String.valueOf(event.getEventId()))
+                                    .name("change")
+                                    .data(event, MediaType.APPLICATION_JSON));
+                            lastSent = event.getEventId();
+                        }
+                    }
+                } catch (IOException | RuntimeException e) {
+                    log.debug("Closing change event stream: {}", e.toString());
+                    subscriptions.remove(this);
+                    emitter.completeWithError(e);
+                    return;
+                } finally {
+                    lock.unlock();
+                }
+            }
+        }
+    }
+}
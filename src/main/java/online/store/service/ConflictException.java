@@ -0,0 +1,11 @@
+package online.store.service;
+
+// A request that conflicts with the current state of the data, e.g. a reused key; answered with 409
+public class ConflictException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public ConflictException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,208 @@
+package online.store.service;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import lombok.extern.slf4j.Slf4j;
+import online.store.dao.IdempotencyRecordDao;
+import online.store.entity.IdempotencyRecord;
+
+@Service
+@Slf4j
+// Makes a write safe to retry with an Idempotency-Key header: the first request with a key runs,
+// every later request with the same key gets the first response back without running again.
+// Executions are kept in a bounded in-process cache that expires them after the retention period;
+// concurrent duplicates find the running execution there and wait for its result instead of
+// starting their own. With online-store.idempotency.database-backed the key is also claimed in the
+// idempotency_record table in the same transaction as the write, which extends the guarantee to
+// duplicates arriving on other nodes (or after a restart).
+public class IdempotencyService {
+
+    private static final int MAX_KEY_LENGTH = 200;
+
+    private final IdempotencyRecordDao idempotencyRecordDao;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final boolean databaseBacked; // Whether keys are also claimed in the idempotency_record table
+    private final Duration retention; // How long a key is remembered after its first use
+    private final Duration waitTimeout; // How long a duplicate waits for the first execution to finish
+    private final Cache<String, Execution> executions; // Running and completed executions by scoped key
+
+    // One execution of a key: the fingerprint of its request and the eventual response
+    private record Execution(String fingerprint, CompletableFuture<Object> response) {
+    }
+
+    // Raised inside the claiming transaction when another node has already used the key
+    private static class AlreadyClaimedException extends RuntimeException {
+
+        private static final long serialVersionUID = 1L;
+    }
+
+    @Autowired
+    public IdempotencyService(IdempotencyRecordDao idempotencyRecordDao, PlatformTransactionManager transactionManager,
+            ObjectMapper objectMapper,
+            @Value("${online-store.idempotency.database-backed:false}") boolean databaseBacked,
+            @Value("${online-store.idempotency.retention:24h}") Duration retention,
+            @Value("${online-store.idempotency.max-entries:10000}") long maxEntries,
+            @Value("${online-store.idempotency.wait-timeout:30s}") Duration waitTimeout) {
+        this.idempotencyRecordDao = idempotencyRecordDao;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.objectMapper = objectMapper;
+        this.databaseBacked = databaseBacked;
+        this.retention = retention;
+        this.waitTimeout = waitTimeout;
+        this.executions = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterWrite(retention)
+                .build();
+    }
+
+    /*
+     * Runs the action once per (scope, key). A repeated key with the same request returns the
+     * stored response, a repeated key with a different request is rejected (409), and a duplicate
+     * arriving while the first execution is still running waits for it, for up to the wait timeout
+     * (409 if it is still running by then). A failed execution is forgotten so the client can retry it.
+     */
+    public <T> T execute(String scope, String idempotencyKey, Object request, Class<T> responseType,
+            Supplier<T> action) {
+        if (idempotencyKey.isBlank() || idempotencyKey.length() > MAX_KEY_LENGTH) {
+            throw new BadRequestException("An Idempotency-Key must have 1 to " + MAX_KEY_LENGTH
+                    + " characters but had " + idempotencyKey.length() + ".");
+        }
+        String scopedKey = scope + ":" + idempotencyKey;
+        String fingerprint = fingerprint(request);
+
+        Execution execution = new Execution(fingerprint, new CompletableFuture<>());
+        Execution existing = executions.asMap().putIfAbsent(scopedKey, execution);
+        if (existing != null) {
+            log.info("Replaying the response of Idempotency-Key {}", scopedKey);
+            checkFingerprint(existing.fingerprint(), fingerprint, idempotencyKey);
+            return responseType.cast(await(existing.response(), idempotencyKey));
+        }
+
+        try {
+            T response = databaseBacked ? executeClaimed(scopedKey, fingerprint, responseType, action) : action.get();
+            execution.response().complete(response);
+            return response;
+        } catch (RuntimeException e) {
+            executions.asMap().remove(scopedKey, execution);
+            execution.response().completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    // Drops the claimed keys that are past the retention period
+    @Scheduled(fixedDelayString = "${online-store.idempotency.cleanup-interval:PT10M}")
+    public void deleteExpiredRecords() {
+        if (!databaseBacked) {
+            return;
+        }
+        int deleted = transactionTemplate.execute(
+                status -> idempotencyRecordDao.deleteCreatedBefore(Instant.now().minus(retention)));
+        log.info("Deleted {} expired idempotency records", deleted);
+    }
+
+    /*
+     * Claims the key, runs the action and stores its response in one transaction, so the change
+     * and the record of it commit or roll back together. If another node already committed the
+     * key, its stored response is replayed without running the action.
+     */
+    private <T> T executeClaimed(String scopedKey, String fingerprint, Class<T> responseType, Supplier<T> action) {
+        try {
+            return transactionTemplate.execute(status -> {
+                try {
+                    idempotencyRecordDao.claim(scopedKey, fingerprint, Instant.now());
+                } catch (DataIntegrityViolationException e) {
+                    throw new AlreadyClaimedException();
+                }
+                T response = action.get();
+                idempotencyRecordDao.complete(scopedKey, toJson(response));
+                return response;
+            });
+        } catch (AlreadyClaimedException e) {
+            // Read in a read-write transaction so the lookup goes to the primary, never to a lagging replica
+            IdempotencyRecord record = transactionTemplate.execute(status -> idempotencyRecordDao.findById(scopedKey))
+                    .orElseThrow(() -> new ConflictException("Idempotency-Key " + scopedKey
+                            + " was claimed concurrently and has since expired, retry with a new key."));
+            checkFingerprint(record.getFingerprint(), fingerprint, scopedKey);
+            log.info("Replaying the stored response of Idempotency-Key {}", scopedKey);
+            return fromJson(record.getResponseBody(), responseType);
+        }
+    }
+
+    private static void checkFingerprint(String expected, String actual, String idempotencyKey) {
+        if (!Objects.equals(expected, actual)) {
+            throw new ConflictException("Idempotency-Key " + idempotencyKey
+                    + " was already used with a different request.");
+        }
+    }
+
+    // Waits a bounded time for the first execution and rethrows its failure as is
+    private Object await(CompletableFuture<Object> response, String idempotencyKey) {
+        try {
+            return response.get(waitTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            throw new ConflictException("Idempotency-Key " + idempotencyKey
+                    + " is still being processed, retry later.");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ConflictException("Idempotency-Key " + idempotencyKey
+                    + " is still being processed, retry later.");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException("Idempotent execution failed.", e.getCause());
+        }
+    }
+
+    // SHA-256 of the request as JSON, so the same key with a changed body is detected
+    private String fingerprint(Object request) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(objectMapper.writeValueAsBytes(request)));
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("The request cannot be fingerprinted: " + e.getOriginalMessage(), e);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available.", e);
+        }
+    }
+
+    private String toJson(Object response) {
+        try {
+            return objectMapper.writeValueAsString(response);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("The response cannot be stored: " + e.getOriginalMessage(), e);
+        }
+    }
+
+    private <T> T fromJson(String responseBody, Class<T> responseType) {
+        try {
+            return objectMapper.readValue(responseBody, responseType);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("The stored response cannot be read: " + e.getOriginalMessage(), e);
+        }
+    }
+}
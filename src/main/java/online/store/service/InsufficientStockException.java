@@ -0,0 +1,22 @@
+package online.store.service;
+
+import lombok.Getter;
+
+// A reservation asked for more of a product than is in stock; nothing was reserved
+@Getter
+public class InsufficientStockException extends ConflictException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final Long productId;
+    private final Long requestedQuantity;
+    private final Long availableQuantity; // Stock at the time of the failed reservation
+
+    public InsufficientStockException(Long productId, Long requestedQuantity, Long availableQuantity) {
+        super("Cannot reserve " + requestedQuantity + " of product with ID=" + productId + ", only "
+                + availableQuantity + " available.");
+        this.productId = productId;
+        this.requestedQuantity = requestedQuantity;
+        this.availableQuantity = availableQuantity;
+    }
+}
@@ -0,0 +1,91 @@
+package online.store.service;
+
+import java.util.Collection;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Service;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
+import lombok.extern.slf4j.Slf4j;
+import online.store.controller.model.OnlineStoreCacheStats;
+import online.store.controller.model.OnlineStoreProductData;
+import online.store.datasource.ReplicaRoutingContext;
+
+@Service
+@Slf4j
+// Owns the product detail cache: invalidation after writes and the hit/miss/eviction counters.
+// The cache is resolved through Spring's CacheManager, so a second tier (e.g. Redis) can be added
+// by configuring another CacheManager without touching the service code.
+public class OnlineStoreCacheService {
+
+    public static final String PRODUCT_CACHE = "products"; // Cache of assembled OnlineStoreProductData keyed by product ID
+
+    private final CacheManager cacheManager;
+
+    @Autowired
+    public OnlineStoreCacheService(CacheManager cacheManager) {
+        this.cacheManager = cacheManager;
+    }
+
+    // Evicts a product right away, e.g. a cached view found to be older than the product
+    public void evictProduct(Long productId) {
+        productCache().evict(productId);
+    }
+
+    // Evicts a product once the current transaction commits, so readers cannot re-cache the old state
+    public void evictProductAfterCommit(Long productId) {
+        AfterCommit.execute(() -> productCache().evict(productId));
+    }
+
+    // Evicts several products once the current transaction commits
+    public void evictProductsAfterCommit(Collection<Long> productIds) {
+        if (productIds.isEmpty()) {
+            return;
+        }
+        AfterCommit.execute(() -> {
+            Cache cache = productCache();
+            productIds.forEach(cache::evict);
+        });
+    }
+
+    // Returns the cached detail view of a product, or null when it is not cached
+    public OnlineStoreProductData getCachedProduct(Long productId) {
+        return productCache().get(productId, OnlineStoreProductData.class);
+    }
+
+    // Caches the detail view of a product loaded in the current transaction, unless it was read from a
+    // replica: a lagging replica could return the state a committed write has just evicted, and the cache
+    // would keep it for the whole TTL
+    public void cacheProduct(Long productId, OnlineStoreProductData productData) {
+        if (ReplicaRoutingContext.isReadFromReplica()) {
+            return;
+        }
+        productCache().put(productId, productData);
+    }
+
+    // Reads the counters of the product cache; they are only available from the in-process Caffeine tier
+    public OnlineStoreCacheStats retrieveProductCacheStats() {
+        Object nativeCache = productCache().getNativeCache();
+
+        if (nativeCache instanceof com.github.benmanes.caffeine.cache.Cache<?, ?> caffeineCache) {
+            CacheStats stats = caffeineCache.stats();
+            return new OnlineStoreCacheStats(PRODUCT_CACHE, caffeineCache.estimatedSize(), stats.hitCount(),
+                    stats.missCount(), stats.evictionCount(), stats.hitRate());
+        }
+
+        log.warn("Cache {} is backed by {} which does not expose statistics", PRODUCT_CACHE,
+                nativeCache.getClass().getName());
+        return new OnlineStoreCacheStats(PRODUCT_CACHE, null, null, null, null, null);
+    }
+
+    private Cache productCache() {
+        Cache cache = cacheManager.getCache(PRODUCT_CACHE);
+        if (cache == null) {
+            throw new IllegalStateException("Cache " + PRODUCT_CACHE + " is not configured.");
+        }
+        return cache;
+    }
+}
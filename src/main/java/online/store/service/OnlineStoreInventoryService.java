@@ -0,0 +1,108 @@
+package online.store.service;
+
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import lombok.extern.slf4j.Slf4j;
+import online.store.controller.model.OnlineStoreChangeEvent.AggregateType;
+import online.store.controller.model.OnlineStoreChangeEvent.Operation;
+import online.store.controller.model.OnlineStoreReservation;
+import online.store.dao.OnlineStoreProductDao;
+import online.store.dao.ProductStockView;
+
+@Service
+@Slf4j
+// Takes stock off Product.productQuantity without a read-modify-write of the whole entity.
+// The decrement is a single conditional UPDATE (quantity >= n), so the database never lets the
+// quantity go negative, whatever number of nodes or threads are reserving concurrently.
+// In front of it, reservations for the same product are serialized on an in-memory lock stripe:
+// a burst of buyers on a hot SKU queues on a cheap JVM lock instead of on the product's row lock,
+// and each transaction holds the row lock only for its one UPDATE.
+public class OnlineStoreInventoryService {
+
+    private final OnlineStoreProductDao onlineStoreProductDao;
+    private final OnlineStoreCacheService onlineStoreCacheService;
+    private final OnlineStoreStatisticsService onlineStoreStatisticsService;
+    private final ChangeEventOutbox changeEventOutbox;
+    private final TransactionTemplate transactionTemplate;
+    private final ReentrantLock[] stripes; // Lock stripes, indexed by the hash of the product ID
+
+    @Autowired
+    public OnlineStoreInventoryService(OnlineStoreProductDao onlineStoreProductDao,
+            OnlineStoreCacheService onlineStoreCacheService, OnlineStoreStatisticsService onlineStoreStatisticsService,
+            ChangeEventOutbox changeEventOutbox, PlatformTransactionManager transactionManager,
+            @Value("${online-store.inventory.lock-stripes:64}") int lockStripes) {
+        this.onlineStoreProductDao = onlineStoreProductDao;
+        this.onlineStoreCacheService = onlineStoreCacheService;
+        this.onlineStoreStatisticsService = onlineStoreStatisticsService;
+        this.changeEventOutbox = changeEventOutbox;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+
+        // Round up to a power of two so the stripe can be picked with a mask
+        int stripeCount = Integer.highestOneBit(Math.max(1, lockStripes - 1)) << 1;
+        this.stripes = new ReentrantLock[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+    /*
+     * Reserves the given quantity of a product. The lock stripe of the product is taken before the
+     * transaction starts and released after it commits, so at most one reservation per stripe is
+     * waiting on the database at a time.
+     * Throws NoSuchElementException if the product does not exist and InsufficientStockException if
+     * there is not enough stock; in both cases nothing is changed.
+     */
+    public OnlineStoreReservation reserveProductQuantity(Long productId, Long quantity) {
+        if (Objects.isNull(quantity) || quantity < 1) {
+            throw new BadRequestException("Quantity to reserve must be at least 1 but was " + quantity + ".");
+        }
+
+        ReentrantLock lock = stripeFor(productId);
+        lock.lock();
+        try {
+            return transactionTemplate.execute(status -> reserve(productId, quantity));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private OnlineStoreReservation reserve(Long productId, Long quantity) {
+        int updated = onlineStoreProductDao.decrementQuantity(productId, quantity);
+
+        // The conditional UPDATE matched nothing: either the product is missing or it is short of stock
+        if (updated == 0) {
+            throw new InsufficientStockException(productId, quantity, findQuantity(productId));
+        }
+
+        // The remaining stock and the price are read together; the price values the reserved quantity
+        ProductStockView stock = onlineStoreProductDao.findStockByProductId(productId)
+                .orElseThrow(() -> new NoSuchElementException("Product with ID=" + productId + " was not found."));
+        Long remainingQuantity = stock.getProductQuantity();
+        onlineStoreCacheService.evictProductAfterCommit(productId);
+        onlineStoreStatisticsService.recordInventoryValueChanged(
+                -OnlineStoreStatisticsService.inventoryValueOf(stock.getProductPrice(), quantity));
+        changeEventOutbox.append(AggregateType.PRODUCT, productId, productId, Operation.UPDATED);
+
+        log.info("Reserved {} of product with ID={}, {} left", quantity, productId, remainingQuantity);
+        return new OnlineStoreReservation(productId, quantity, remainingQuantity);
+    }
+
+    private Long findQuantity(Long productId) {
+        return onlineStoreProductDao.findQuantityByProductId(productId)
+                .orElseThrow(() -> new NoSuchElementException("Product with ID=" + productId + " was not found."));
+    }
+
+    private ReentrantLock stripeFor(Long productId) {
+        int hash = productId.hashCode();
+        hash ^= (hash >>> 16); // Spread the high bits so sequential IDs do not cluster
+        return stripes[hash & (stripes.length - 1)];
+    }
+}
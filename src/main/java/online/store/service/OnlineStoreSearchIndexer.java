@@ -0,0 +1,38 @@
+package online.store.service;
+
+import org.hibernate.search.mapper.orm.Search;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import online.store.entity.Product;
+
+@Component
+@ConditionalOnProperty(prefix = "online-store.search", name = "reindex-on-startup", havingValue = "true")
+@Slf4j
+// Rebuilds the product index from the database once at startup. Only needed the first time the
+// search is enabled on an existing database, or after the index directory has been lost; from then
+// on Hibernate Search updates the index incrementally on every commit.
+public class OnlineStoreSearchIndexer {
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    public OnlineStoreSearchIndexer(EntityManagerFactory entityManagerFactory) {
+        this.entityManagerFactory = entityManagerFactory;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void reindexProducts() throws InterruptedException {
+        log.info("Rebuilding the product search index");
+        Search.mapping(entityManagerFactory).scope(Product.class).massIndexer()
+                .threadsToLoadObjects(4)
+                .batchSizeToLoadObjects(100)
+                .startAndWait();
+        log.info("Product search index rebuilt");
+    }
+}
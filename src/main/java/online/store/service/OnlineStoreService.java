@@ -1,41 +1,122 @@
 package online.store.service;
 
 import lombok.extern.slf4j.Slf4j;
+import online.store.controller.model.OnlineStoreBulkResult;
+import online.store.controller.model.OnlineStoreBulkResult.BulkItemStatus;
 import online.store.controller.model.OnlineStoreCategory;
+import online.store.controller.model.OnlineStoreChangeEvent.AggregateType;
+import online.store.controller.model.OnlineStoreChangeEvent.Operation;
 import online.store.controller.model.OnlineStoreProductData;
+import online.store.controller.model.OnlineStoreProductLookup;
+import online.store.controller.model.OnlineStoreProductLookup.LookupStatus;
+import online.store.controller.model.OnlineStoreProductPage;
+import online.store.controller.model.OnlineStoreProductSummary;
+import online.store.controller.model.OnlineStoreSearchResult;
 import online.store.controller.model.OnlineStoreUser;
 import online.store.dao.OnlineStoreProductDao;
 import online.store.dao.OnlineStoreUserDao;
 import online.store.dao.OnlineStoreCategoryDao;
+import online.store.dao.ProductVersionView;
 import online.store.entity.Category;
 import online.store.entity.Product;
 import online.store.entity.User;
-
+import online.store.mapping.OnlineStoreProductMapper;
+
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.hibernate.Hibernate;
+import org.hibernate.search.engine.search.common.BooleanOperator;
+import org.hibernate.search.engine.search.query.SearchResult;
+import org.hibernate.search.mapper.orm.Search;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.DigestUtils;
 
-import java.util.LinkedList;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Objects;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.PersistenceContext;
 
 @Service
 @Slf4j
+@Timed(value = "online_store.service", histogram = true) // Times every public service method, tagged by method name
 // This is the service class that handles online store operations
 public class OnlineStoreService {
 
     private final OnlineStoreProductDao onlineStoreProductDao;
     private final OnlineStoreUserDao onlineStoreUserDao;
     private final OnlineStoreCategoryDao onlineStoreCategoryDao;
+    private final OnlineStoreCacheService onlineStoreCacheService;
+    private final OnlineStoreProductMapper onlineStoreProductMapper;
+    private final OnlineStoreStatisticsService onlineStoreStatisticsService;
+    private final ChangeEventOutbox changeEventOutbox;
+    private final ProductRetirementService productRetirementService;
+    private final CategorySearchReindexer categorySearchReindexer;
+    private final int defaultPageSize; // Page size used when the client does not ask for one
+    private final int maxPageSize; // Upper bound on the page size a client can ask for
+    private final int bulkBatchSize; // Products written per flush in a bulk upsert, should match hibernate.jdbc.batch_size
+    private final int bulkMaxItems; // Upper bound on the number of products in one bulk upsert request
+    private final int maxBatchIds; // Upper bound on the number of IDs in one multi-get request
+    private final Timer detailMappingTimer; // Time spent building OnlineStoreProductData with users and categories
+    private final Timer summaryMappingTimer; // Time spent building OnlineStoreProductSummary
+
+    @PersistenceContext // Used to detach streamed entities so the persistence context does not grow
+    private EntityManager entityManager;
 
     @Autowired
     // Constructor-based dependency injection using Autowired annotation
     public OnlineStoreService(OnlineStoreProductDao onlineStoreProductDao,
-    		OnlineStoreUserDao onlineStoreUserDao, OnlineStoreCategoryDao onlineStoreCategoryDao) {
+    		OnlineStoreUserDao onlineStoreUserDao, OnlineStoreCategoryDao onlineStoreCategoryDao,
+    		OnlineStoreCacheService onlineStoreCacheService, OnlineStoreProductMapper onlineStoreProductMapper,
+    		OnlineStoreStatisticsService onlineStoreStatisticsService, ChangeEventOutbox changeEventOutbox,
+    		ProductRetirementService productRetirementService, CategorySearchReindexer categorySearchReindexer,
+    		MeterRegistry meterRegistry,
+    		@Value("${online-store.products.default-page-size:50}") int defaultPageSize,
+    		@Value("${online-store.products.max-page-size:500}") int maxPageSize,
+    		@Value("${online-store.bulk.batch-size:50}") int bulkBatchSize,
+    		@Value("${online-store.bulk.max-items:5000}") int bulkMaxItems,
+    		@Value("${online-store.products.max-batch-ids:100}") int maxBatchIds) {
         this.onlineStoreProductDao = onlineStoreProductDao;
         this.onlineStoreUserDao = onlineStoreUserDao;
         this.onlineStoreCategoryDao = onlineStoreCategoryDao;
+        this.onlineStoreCacheService = onlineStoreCacheService;
+        this.onlineStoreProductMapper = onlineStoreProductMapper;
+        this.onlineStoreStatisticsService = onlineStoreStatisticsService;
+        this.changeEventOutbox = changeEventOutbox;
+        this.productRetirementService = productRetirementService;
+        this.categorySearchReindexer = categorySearchReindexer;
+        this.defaultPageSize = defaultPageSize;
+        this.maxPageSize = maxPageSize;
+        this.bulkBatchSize = bulkBatchSize;
+        this.bulkMaxItems = bulkMaxItems;
+        this.maxBatchIds = maxBatchIds;
+        this.detailMappingTimer = mappingTimer(meterRegistry, "detail");
+        this.summaryMappingTimer = mappingTimer(meterRegistry, "summary");
+    }
+
+    private static Timer mappingTimer(MeterRegistry meterRegistry, String view) {
+        return Timer.builder("online_store.dto.mapping")
+                .description("Time spent mapping a Product entity to its DTO view")
+                .tag("view", view)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
     }
 
     /*
@@ -45,6 +126,7 @@ public class OnlineStoreService {
      * It then copies the matching fields from the product data to the product object.
      * Finally, it saves the product in the database and returns the saved product data.
      */
+    @Transactional
     public OnlineStoreProductData saveOnlineStoreProduct(OnlineStoreProductData productData) {
         Long productId = productData.getProductId();
         Product product;
@@ -58,13 +140,119 @@ public class OnlineStoreService {
             }
         }
 
+        long previousValue = productId == null ? 0 : inventoryValueOf(product);
         copyOnlineStoreFields(productData, product);
 
         Product savedProduct = onlineStoreProductDao.save(product);
+        onlineStoreStatisticsService.recordProductsSaved(productId == null ? 1 : 0,
+                inventoryValueOf(savedProduct) - previousValue);
+        changeEventOutbox.append(AggregateType.PRODUCT, savedProduct.getProductId(), savedProduct.getProductId(),
+                productId == null ? Operation.CREATED : Operation.UPDATED);
 
         log.info("Saved online store product: {}", savedProduct);
 
-        return new OnlineStoreProductData(savedProduct);
+        // Drop the cached detail view of an updated product once the change is committed
+        if (productId != null) {
+            onlineStoreCacheService.evictProductAfterCommit(productId);
+        }
+
+        return toProductDetail(savedProduct);
+    }
+
+    /*
+     * Creates or updates many products in one request. The items are processed in chunks of
+     * bulkBatchSize: the existing products of a chunk are resolved with a single IN query, the
+     * chunk is flushed as JDBC batches (ordered inserts/updates) and the persistence context is
+     * cleared before the next chunk. Items whose product ID does not exist are reported as
+     * NOT_FOUND instead of failing the whole request.
+     */
+    @Transactional
+    public List<OnlineStoreBulkResult> saveOnlineStoreProducts(List<OnlineStoreProductData> productDataList) {
+        if (productDataList.size() > bulkMaxItems) {
+            throw new BadRequestException("A bulk request may contain at most " + bulkMaxItems
+                    + " products but contained " + productDataList.size() + ".");
+        }
+
+        List<OnlineStoreBulkResult> results = new ArrayList<>(productDataList.size());
+
+        for (int start = 0; start < productDataList.size(); start += bulkBatchSize) {
+            int end = Math.min(start + bulkBatchSize, productDataList.size());
+            saveOnlineStoreProductChunk(productDataList.subList(start, end), start, results);
+        }
+
+        log.info("Bulk saved {} online store products", productDataList.size());
+        return results;
+    }
+
+    // Writes one chunk of a bulk upsert and appends a result per item
+    private void saveOnlineStoreProductChunk(List<OnlineStoreProductData> chunk, int offset,
+            List<OnlineStoreBulkResult> results) {
+        // Resolve every existing product of the chunk in one query
+        Set<Long> productIds = new HashSet<>();
+        for (OnlineStoreProductData productData : chunk) {
+            if (productData.getProductId() != null) {
+                productIds.add(productData.getProductId());
+            }
+        }
+
+        Map<Long, Product> existingProducts = new HashMap<>();
+        for (Product product : onlineStoreProductDao.findAllById(productIds)) {
+            existingProducts.put(product.getProductId(), product);
+        }
+
+        List<Product> products = new ArrayList<>(chunk.size());
+        List<OnlineStoreBulkResult> chunkResults = new ArrayList<>(chunk.size());
+        int created = 0;
+        long valueDelta = 0;
+
+        for (int i = 0; i < chunk.size(); i++) {
+            OnlineStoreProductData productData = chunk.get(i);
+            Long productId = productData.getProductId();
+            Product product;
+            BulkItemStatus status;
+
+            if (productId == null) {
+                product = new Product();
+                status = BulkItemStatus.CREATED;
+                created++;
+            } else {
+                product = existingProducts.get(productId);
+                if (product == null) {
+                    chunkResults.add(new OnlineStoreBulkResult(offset + i, productId, BulkItemStatus.NOT_FOUND,
+                            "Product with ID=" + productId + " was not found."));
+                    products.add(null);
+                    continue;
+                }
+                status = BulkItemStatus.UPDATED;
+                onlineStoreCacheService.evictProductAfterCommit(productId);
+                valueDelta -= inventoryValueOf(product);
+            }
+
+            copyOnlineStoreFields(productData, product);
+            valueDelta += inventoryValueOf(product);
+            products.add(product);
+            chunkResults.add(new OnlineStoreBulkResult(offset + i, null, status, null));
+        }
+
+        // New products get their IDs from the pooled sequence here; the statements go out as batches on flush
+        onlineStoreProductDao.saveAll(products.stream().filter(Objects::nonNull).toList());
+        entityManager.flush();
+        onlineStoreStatisticsService.recordProductsSaved(created, valueDelta);
+
+        List<ChangeEventOutbox.Change> changes = new ArrayList<>(chunkResults.size());
+        for (int i = 0; i < chunkResults.size(); i++) {
+            if (products.get(i) != null) {
+                Long productId = products.get(i).getProductId();
+                chunkResults.get(i).setProductId(productId);
+                changes.add(new ChangeEventOutbox.Change(AggregateType.PRODUCT, productId, productId,
+                        chunkResults.get(i).getStatus() == BulkItemStatus.CREATED ? Operation.CREATED : Operation.UPDATED));
+            }
+        }
+        changeEventOutbox.appendAll(changes);
+        results.addAll(chunkResults);
+
+        // Keep the persistence context (and the cost of dirty checking) bounded to one chunk
+        entityManager.clear();
     }
 
  // Find a product by ID in the database
@@ -117,11 +305,22 @@ public class OnlineStoreService {
         existingUser.setProduct(product);
         product.getUsers().add(existingUser);
 
+        // The users are part of the product's representation, so its version (and ETag) must change
+        entityManager.lock(product, LockModeType.OPTIMISTIC_FORCE_INCREMENT);
+
         // Save the user in the database
         User savedUser = onlineStoreUserDao.save(existingUser);
+        if (userId == null) {
+            onlineStoreStatisticsService.recordUsersAdded(Map.of(productId, 1));
+        }
+        changeEventOutbox.append(AggregateType.USER, savedUser.getUserId(), productId,
+                userId == null ? Operation.CREATED : Operation.UPDATED);
+
+        // The product's detail view lists its users, so it has to be reloaded
+        onlineStoreCacheService.evictProductAfterCommit(productId);
 
         // Return the saved user as an OnlineStoreUser object
-        return new OnlineStoreUser(savedUser);
+        return onlineStoreProductMapper.toUser(savedUser);
     }
 
     private User findOrCreateUser(Long productId, Long userId) {
@@ -140,7 +339,7 @@ public class OnlineStoreService {
                 .orElseThrow(() -> new NoSuchElementException("User with ID=" + userId + " was not found."));
         
         // Check if the user is not associated with the given product ID
-        if (user.getProduct().getProductId() != productId) {
+        if (!Objects.equals(user.getProduct().getProductId(), productId)) {
             throw new IllegalArgumentException("The user with ID=" + userId
                     + " is not a user for the product with ID=" + productId + ".");
         }
@@ -165,18 +364,35 @@ public class OnlineStoreService {
 	 // Find or create the category based on the product ID and category ID
 	    Category existingCategory = findOrCreateCategory(productId, categoryId); 
 
+	    // Renaming an existing category changes the detail view of every product in it
+	    if (categoryId != null && !Objects.equals(existingCategory.getCategoryName(), category.getCategoryName())) {
+	        onlineStoreCacheService.evictProductsAfterCommit(
+	                onlineStoreProductDao.findProductIdsByCategoryId(categoryId));
+	        onlineStoreProductDao.incrementVersionsByCategoryId(categoryId);
+	        categorySearchReindexer.reindexCategoryAfterCommit(categoryId);
+	    }
+
 	    // Copy the fields from the category object to the existingCategory object
 	    copyOnlineStoreCategoryFields(category, existingCategory);
 
-	    // Set the product for the category and add the category to the product's categories collection
-	    existingCategory.getProducts().add(product);
-	    product.getCategories().add(existingCategory);
+	    // A new category is linked to the product; an existing one was already verified to be linked.
+	    // Changing the product's categories collection increments the product version.
+	    if (categoryId == null) {
+	        existingCategory.getProducts().add(product);
+	        product.getCategories().add(existingCategory);
+	    }
 
 	    // Save the category in the database
 	    Category savedCategory = onlineStoreCategoryDao.save(existingCategory);
+	    onlineStoreCacheService.evictProductAfterCommit(productId);
+	    if (categoryId == null) {
+	        onlineStoreStatisticsService.recordCategoryLinked(savedCategory.getCategoryId());
+	    }
+	    changeEventOutbox.append(AggregateType.CATEGORY, savedCategory.getCategoryId(), productId,
+	            categoryId == null ? Operation.CREATED : Operation.UPDATED);
 
 	    // Return the saved category as an OnlineStoreCategory object
-	    return new OnlineStoreCategory(savedCategory);
+	    return onlineStoreProductMapper.toCategory(savedCategory);
 	}
 	private void copyOnlineStoreCategoryFields(OnlineStoreCategory category, Category existingCategory) {
 	    // Copy the category name from the category object to the existingCategory object
@@ -198,16 +414,9 @@ public class OnlineStoreService {
 	    Category category = onlineStoreCategoryDao.findById(categoryId)
 	            .orElseThrow(() -> new NoSuchElementException("Category with ID=" + categoryId + " was not found."));
 
-	    boolean found = false;
-
-	    // Check if the category is a member of the product with the given productId
-	    for (Product product : category.getProducts()) {
-	        if (product.getProductId() == productId) {
-	            found = true;
-	            break;
-	        }
-	    }
-	    if (!found) {
+	    // Check if the category is a member of the product with the given productId with a primary key
+	    // lookup on the join table, instead of loading every product of the category
+	    if (onlineStoreCategoryDao.countProductLinks(categoryId, productId) == 0) {
 	        // Throw an exception if the category is not a member of the product
 	        throw new IllegalArgumentException("The Category with ID=" + categoryId
 	                + " is not a member of the product with ID=" + productId);
@@ -216,41 +425,259 @@ public class OnlineStoreService {
 	    return category;
 	}
 
-	@Transactional
-	public List<OnlineStoreProductData> retrieveAllProducts() {
-	    // Retrieve all products from the database
-	    List<Product> products = onlineStoreProductDao.findAll();
+	/*
+	 * Retrieves one page of products ordered by product ID. Instead of an OFFSET the query
+	 * seeks past the last product ID of the previous page (carried in the opaque cursor),
+	 * so every page costs the same no matter how deep the client has paged.
+	 * The users and categories collections are not loaded for the listing.
+	 */
+	@Transactional(readOnly = true)
+	public OnlineStoreProductPage retrieveAllProducts(String cursor, Integer pageSize) {
+	    int size = resolvePageSize(pageSize);
+
+	    // Ask for one extra row so we know whether another page follows
+	    Pageable pageable = PageRequest.of(0, size + 1);
+	    List<Product> products = Objects.isNull(cursor)
+	            ? onlineStoreProductDao.findAllByOrderByProductIdAsc(pageable)
+	            : onlineStoreProductDao.findByProductIdGreaterThanOrderByProductIdAsc(ProductCursor.decode(cursor), pageable);
+
+	    return toProductPage(products, size);
+	}
 
-	    List<OnlineStoreProductData> result = new LinkedList<>();
+	/*
+	 * Retrieves one page of the products of a category, ordered by product ID, with the same
+	 * keyset pagination as the full listing. The seek runs on the (category_id, product_id)
+	 * index of the category_product join table, so deep pages of large categories stay cheap.
+	 */
+	@Transactional(readOnly = true)
+	public OnlineStoreProductPage retrieveProductsByCategory(Long categoryId, String cursor, Integer pageSize) {
+	    if (!onlineStoreCategoryDao.existsByCategoryId(categoryId)) {
+	        throw new NoSuchElementException("Category with ID=" + categoryId + " was not found.");
+	    }
+	    int size = resolvePageSize(pageSize);
+
+	    // Ask for one extra row so we know whether another page follows
+	    Pageable pageable = PageRequest.of(0, size + 1);
+	    List<Product> products = Objects.isNull(cursor)
+	            ? onlineStoreProductDao.findByCategoryId(categoryId, pageable)
+	            : onlineStoreProductDao.findByCategoryIdAfterProductId(categoryId, ProductCursor.decode(cursor), pageable);
 
-	    // Convert each product to OnlineStoreProductData and add it to the result list
-	    for (Product product : products) {
-	        OnlineStoreProductData ospd = new OnlineStoreProductData(product);
+	    return toProductPage(products, size);
+	}
 
-	        // Clear the categories and users collections to avoid unwanted data
-	        ospd.getCategories().clear();
-	        ospd.getUsers().clear();
+	// Turn up to size + 1 products into a page of summaries; the extra product only signals a next page
+	private OnlineStoreProductPage toProductPage(List<Product> products, int size) {
+	    boolean hasMore = products.size() > size;
+	    List<OnlineStoreProductSummary> result = new ArrayList<>(Math.min(products.size(), size));
 
-	        result.add(ospd);
+	    // Convert each product to an OnlineStoreProductSummary and add it to the result list
+	    for (Product product : products.subList(0, Math.min(products.size(), size))) {
+	        result.add(toProductSummary(product));
 	    }
 
-	    return result;
+	    String nextCursor = hasMore ? ProductCursor.encode(result.get(result.size() - 1).getProductId()) : null;
+
+	    return new OnlineStoreProductPage(result, nextCursor);
 	}
 
-	@Transactional(readOnly = false)
+	/*
+	 * Streams every product, in product ID order, to the given consumer as an
+	 * OnlineStoreProductSummary. The products are read through a JDBC cursor and each entity is
+	 * detached once it has been handed over, so memory use stays flat however large the catalog is.
+	 */
+	@Transactional(readOnly = true)
+	public long streamAllProducts(Consumer<OnlineStoreProductSummary> consumer) {
+	    long count = 0;
+
+	    try (Stream<Product> products = onlineStoreProductDao.streamAllByOrderByProductIdAsc()) {
+	        for (Product product : (Iterable<Product>) products::iterator) {
+	            consumer.accept(toProductSummary(product));
+
+	            // Drop the entity from the persistence context now that it has been written out
+	            entityManager.detach(product);
+	            count++;
+	        }
+	    }
+
+	    log.info("Streamed {} products", count);
+	    return count;
+	}
+
+	/*
+	 * Full-text search over the product name, description and category names, served from the
+	 * Lucene index maintained by Hibernate Search. Results are ranked by relevance (a name match
+	 * weighs twice as much as a description or category match) and paginated; only the products
+	 * of the requested page are loaded from the database, with a single IN query.
+	 */
+	@Transactional(readOnly = true)
+	public OnlineStoreSearchResult searchProducts(String query, Integer page, Integer pageSize) {
+	    if (Objects.isNull(query) || query.isBlank()) {
+	        throw new BadRequestException("A search query is required.");
+	    }
+	    int pageNumber = Objects.isNull(page) ? 0 : page;
+	    if (pageNumber < 0) {
+	        throw new BadRequestException("Page must not be negative but was " + pageNumber + ".");
+	    }
+	    int size = resolvePageSize(pageSize);
+
+	    SearchResult<Product> result = Search.session(entityManager).search(Product.class)
+	            .where(f -> f.simpleQueryString()
+	                    .field("productName").boost(2.0f)
+	                    .fields("productDescription", "categories.categoryName")
+	                    .matching(query)
+	                    .defaultOperator(BooleanOperator.AND))
+	            .fetch(pageNumber * size, size);
+
+	    List<OnlineStoreProductSummary> products = new ArrayList<>(result.hits().size());
+	    for (Product product : result.hits()) {
+	        products.add(toProductSummary(product));
+	    }
+
+	    return new OnlineStoreSearchResult(query, result.total().hitCount(), pageNumber, size, products);
+	}
+
+	// Reads the version of a product without loading it, for the conditional GET of the product
+	@Transactional(readOnly = true)
+	public Long retrieveProductVersion(Long productId) {
+	    return onlineStoreProductDao.findVersionByProductId(productId)
+	            .orElseThrow(() -> new NoSuchElementException("Product with ID=" + productId + " was not found."));
+	}
+
+	/*
+	 * Computes the ETag of a listing page from the IDs and versions of its rows (plus the row that
+	 * tells whether a next page exists). Any insert, delete or update that changes the page changes
+	 * the ETag, while an unchanged page is recognized by reading just two columns.
+	 */
+	@Transactional(readOnly = true)
+	public String retrieveProductPageETag(String cursor, Integer pageSize) {
+	    Pageable pageable = PageRequest.of(0, resolvePageSize(pageSize) + 1);
+	    List<ProductVersionView> versions = Objects.isNull(cursor)
+	            ? onlineStoreProductDao.findVersionsByOrderByProductIdAsc(pageable)
+	            : onlineStoreProductDao.findVersionsByProductIdGreaterThanOrderByProductIdAsc(ProductCursor.decode(cursor), pageable);
+
+	    ByteBuffer buffer = ByteBuffer.allocate(Long.BYTES * 2 * versions.size());
+	    for (ProductVersionView version : versions) {
+	        buffer.putLong(version.getProductId());
+	        buffer.putLong(version.getProductVersion());
+	    }
+	    return DigestUtils.md5DigestAsHex(buffer.array());
+	}
+
+	// Copy only the scalar product fields, leaving the users and categories collections untouched
+	private OnlineStoreProductSummary toProductSummary(Product product) {
+	    return summaryMappingTimer.record(() -> onlineStoreProductMapper.toSummary(product));
+	}
+
+	// Build the full OnlineStoreProductData, including users and categories
+	private OnlineStoreProductData toProductDetail(Product product) {
+	    return detailMappingTimer.record(() -> onlineStoreProductMapper.toDetail(product));
+	}
+
+	private static long inventoryValueOf(Product product) {
+	    return OnlineStoreStatisticsService.inventoryValueOf(product.getProductPrice(), product.getProductQuantity());
+	}
+
+	// Use the default page size when none is given and clamp the requested one to [1, maxPageSize]
+	private int resolvePageSize(Integer pageSize) {
+	    if (Objects.isNull(pageSize)) {
+	        return defaultPageSize;
+	    }
+	    if (pageSize < 1) {
+	        throw new BadRequestException("Page size must be at least 1 but was " + pageSize + ".");
+	    }
+	    return Math.min(pageSize, maxPageSize);
+	}
+
+	/*
+	 * Retrieves a product with its users and categories: one fetch join for the users, then the
+	 * categories from the second-level cache (the product's category IDs, then each category), so
+	 * only a cold cache costs a second statement. The assembled result is cached and every write to
+	 * the product evicts it. Like the other reads it may be served by a replica; such a result is
+	 * returned but not cached, since a lagging replica could put back the version a write has just evicted.
+	 */
+	@Transactional(readOnly = true)
 	public OnlineStoreProductData retrieveProductById(Long productId) {
-	    // Find the product by ID in the database
-	    Product product = findProductById(productId);
+	    OnlineStoreProductData cached = onlineStoreCacheService.getCachedProduct(productId);
+	    if (cached != null) {
+	        return cached;
+	    }
+
+	    // Find the product by ID in the database, fetching its users
+	    Product product = onlineStoreProductDao.findWithUsersByProductId(productId)
+	            .orElseThrow(() -> new NoSuchElementException("Product with ID=" + productId + " was not found."));
+
+	    // Initialize the categories, from the second-level cache when they are there
+	    Hibernate.initialize(product.getCategories());
 
-	    // Convert the product to OnlineStoreProductData and return it
-	    return new OnlineStoreProductData(product);
+	    // Convert the product to OnlineStoreProductData, cache it when it came from the primary and return it
+	    OnlineStoreProductData productData = toProductDetail(product);
+	    onlineStoreCacheService.cacheProduct(productId, productData);
+	    return productData;
 	}
 
+	/*
+	 * Retrieves several products with their users and categories, answering in the order of the
+	 * requested IDs (a repeated ID is answered each time) and marking unknown IDs as NOT_FOUND.
+	 * Products in the detail cache are served from it. The others are loaded together with one IN
+	 * query fetching the users; their categories come from the second-level cache, and the
+	 * collections missing there are loaded 50 products per statement. The loaded products are cached
+	 * under the same rule as retrieveProductById: only when they were not read from a replica.
+	 */
+	@Transactional(readOnly = true)
+	public List<OnlineStoreProductLookup> retrieveProductsByIds(List<Long> productIds) {
+	    if (productIds.isEmpty() || productIds.size() > maxBatchIds) {
+	        throw new BadRequestException("A multi-get request must ask for 1 to " + maxBatchIds
+	                + " products but asked for " + productIds.size() + ".");
+	    }
+
+	    // Serve what the cache has and collect the rest, once per distinct ID
+	    Map<Long, OnlineStoreProductData> found = new HashMap<>(productIds.size() * 4 / 3 + 1);
+	    Set<Long> missing = new LinkedHashSet<>();
+	    for (Long productId : productIds) {
+	        if (Objects.isNull(productId)) {
+	            throw new BadRequestException("A multi-get request must not contain an empty product ID.");
+	        }
+	        if (found.containsKey(productId) || missing.contains(productId)) {
+	            continue;
+	        }
+	        OnlineStoreProductData cached = onlineStoreCacheService.getCachedProduct(productId);
+	        if (cached != null) {
+	            found.put(productId, cached);
+	        } else {
+	            missing.add(productId);
+	        }
+	    }
+
+	    if (!missing.isEmpty()) {
+	        List<Product> products = onlineStoreProductDao.findWithUsersByProductIdIn(missing);
+
+	        for (Product product : products) {
+	            Hibernate.initialize(product.getCategories());
+	            OnlineStoreProductData productData = toProductDetail(product);
+	            found.put(product.getProductId(), productData);
+	            onlineStoreCacheService.cacheProduct(product.getProductId(), productData);
+	        }
+	    }
+
+	    List<OnlineStoreProductLookup> result = new ArrayList<>(productIds.size());
+	    for (Long productId : productIds) {
+	        OnlineStoreProductData productData = found.get(productId);
+	        result.add(productData == null
+	                ? new OnlineStoreProductLookup(productId, LookupStatus.NOT_FOUND, null)
+	                : new OnlineStoreProductLookup(productId, LookupStatus.FOUND, productData));
+	    }
+	    return result;
+	}
+
+	/*
+	 * Deletes a product with its users and category links through the set-based statements of
+	 * ProductRetirementService, instead of loading the product and cascading the delete row by row.
+	 */
+	@Transactional
 	public void deleteProductById(Long productId) {
-	    // Find the product by ID in the database
-	    Product product = findProductById(productId);
-	    // Delete the product from the database
-	    onlineStoreProductDao.delete(product);
+	    if (productRetirementService.retireProducts(List.of(productId), false).products() == 0) {
+	        throw new NoSuchElementException("Product with ID=" + productId + " was not found.");
+	    }
 	}
 }
 	
@@ -0,0 +1,185 @@
+package online.store.service;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import online.store.controller.model.OnlineStoreCatalogStats;
+import online.store.controller.model.OnlineStoreCategoryStats;
+import online.store.controller.model.OnlineStoreProductStats;
+import online.store.dao.CatalogTotalsView;
+import online.store.dao.GroupCountView;
+import online.store.dao.OnlineStoreProductDao;
+import online.store.dao.OnlineStoreUserDao;
+
+@Service
+@Slf4j
+// Catalog statistics kept in memory and updated incrementally by every write, so reading them
+// costs the same however large the catalog is. The write paths report their deltas here and
+// the deltas are applied only once the write has committed. A scheduled reconciliation recomputes
+// everything with GROUP BY queries and overwrites the counters, which corrects any drift: writes
+// made outside the application, or an increment racing with the reconciliation itself.
+public class OnlineStoreStatisticsService {
+
+    private final OnlineStoreProductDao onlineStoreProductDao;
+    private final OnlineStoreUserDao onlineStoreUserDao;
+
+    private final LongAdder productCount = new LongAdder(); // Number of products
+    private final LongAdder userCount = new LongAdder(); // Number of users across all products
+    private final LongAdder inventoryValue = new LongAdder(); // Sum of price * quantity over all products
+    private final ConcurrentMap<Long, LongAdder> productsPerCategory = new ConcurrentHashMap<>(); // Keyed by category ID
+    private final ConcurrentMap<Long, LongAdder> usersPerProduct = new ConcurrentHashMap<>(); // Keyed by product ID
+    private volatile Instant reconciledAt; // Completion time of the last reconciliation
+
+    @Autowired
+    public OnlineStoreStatisticsService(OnlineStoreProductDao onlineStoreProductDao,
+            OnlineStoreUserDao onlineStoreUserDao, MeterRegistry meterRegistry) {
+        this.onlineStoreProductDao = onlineStoreProductDao;
+        this.onlineStoreUserDao = onlineStoreUserDao;
+
+        // Publish the totals as gauges so dashboards can chart them without calling the endpoint
+        Gauge.builder("online_store.catalog.products", productCount, LongAdder::sum)
+                .description("Number of products in the catalog").register(meterRegistry);
+        Gauge.builder("online_store.catalog.users", userCount, LongAdder::sum)
+                .description("Number of users across all products").register(meterRegistry);
+        Gauge.builder("online_store.catalog.inventory.value", inventoryValue, LongAdder::sum)
+                .description("Sum of price times quantity over all products").register(meterRegistry);
+    }
+
+    // The inventory value of one product; a missing price or quantity counts as zero, as in the SQL sum
+    public static long inventoryValueOf(Long price, Long quantity) {
+        return Objects.isNull(price) || Objects.isNull(quantity) ? 0 : price * quantity;
+    }
+
+    // Products were created or updated: created new ones, and the inventory value changed by valueDelta
+    public void recordProductsSaved(int created, long valueDelta) {
+        AfterCommit.execute(() -> {
+            productCount.add(created);
+            inventoryValue.add(valueDelta);
+        });
+    }
+
+    // Products were deleted together with their users and their category links; linksPerCategory gives
+    // the number of the deleted products in each of their categories
+    public void recordProductsDeleted(Collection<Long> productIds, long value, long users,
+            Collection<GroupCountView> linksPerCategory) {
+        Map<Long, Long> links = toMap(linksPerCategory);
+        AfterCommit.execute(() -> {
+            productCount.add(-productIds.size());
+            inventoryValue.add(-value);
+            userCount.add(-users);
+            productIds.forEach(usersPerProduct::remove);
+            links.forEach((categoryId, products) -> counter(productsPerCategory, categoryId).add(-products));
+        });
+    }
+
+    // A category was linked to a product
+    public void recordCategoryLinked(Long categoryId) {
+        AfterCommit.execute(() -> counter(productsPerCategory, categoryId).increment());
+    }
+
+    // Users were added to products; the map gives the number of new users per product ID
+    public void recordUsersAdded(Map<Long, Integer> usersByProduct) {
+        AfterCommit.execute(() -> usersByProduct.forEach((productId, users) -> {
+            userCount.add(users);
+            counter(usersPerProduct, productId).add(users);
+        }));
+    }
+
+    // The inventory value changed without any product being created or deleted, e.g. by a reservation
+    public void recordInventoryValueChanged(long valueDelta) {
+        AfterCommit.execute(() -> inventoryValue.add(valueDelta));
+    }
+
+    public OnlineStoreCatalogStats retrieveCatalogStats() {
+        long products = productCount.sum();
+        long users = userCount.sum();
+        double averageUsersPerProduct = products == 0 ? 0.0 : (double) users / products;
+
+        return new OnlineStoreCatalogStats(products, users, inventoryValue.sum(), productsPerCategory.size(),
+                averageUsersPerProduct, reconciledAt);
+    }
+
+    public OnlineStoreCategoryStats retrieveCategoryStats(Long categoryId) {
+        return new OnlineStoreCategoryStats(categoryId, sum(productsPerCategory, categoryId));
+    }
+
+    public OnlineStoreProductStats retrieveProductStats(Long productId) {
+        return new OnlineStoreProductStats(productId, sum(usersPerProduct, productId));
+    }
+
+    /*
+     * Recomputes every counter from the database and replaces the in-memory values, logging any
+     * drift it corrects. Runs at startup (which is also how the counters are first filled) and then
+     * at a fixed delay. The transaction is not read-only so the queries go to the primary: a lagging
+     * replica would undo increments the counters have already seen.
+     */
+    @Scheduled(fixedDelayString = "${online-store.statistics.reconcile-interval:PT5M}")
+    @Transactional
+    public void reconcile() {
+        CatalogTotalsView totals = onlineStoreProductDao.findCatalogTotals();
+        long users = onlineStoreUserDao.count();
+
+        logDrift("products", productCount.sum(), totals.getProductCount());
+        logDrift("users", userCount.sum(), users);
+        logDrift("inventory value", inventoryValue.sum(), totals.getInventoryValue());
+
+        reset(productCount, totals.getProductCount());
+        reset(userCount, users);
+        reset(inventoryValue, totals.getInventoryValue());
+        replace(productsPerCategory, toMap(onlineStoreProductDao.countProductsByCategory()));
+        replace(usersPerProduct, toMap(onlineStoreUserDao.countUsersByProduct()));
+
+        reconciledAt = Instant.now();
+        log.debug("Reconciled catalog statistics: {} products, {} users", totals.getProductCount(), users);
+    }
+
+    private static LongAdder counter(ConcurrentMap<Long, LongAdder> counters, Long id) {
+        return counters.computeIfAbsent(id, key -> new LongAdder());
+    }
+
+    private static long sum(ConcurrentMap<Long, LongAdder> counters, Long id) {
+        LongAdder counter = counters.get(id);
+        return counter == null ? 0 : counter.sum();
+    }
+
+    // Not atomic: an increment landing between the two calls is lost until the next reconciliation
+    private static void reset(LongAdder counter, long value) {
+        counter.reset();
+        counter.add(value);
+    }
+
+    // Brings the counters in line with the database, dropping the IDs that no longer have any rows
+    private static void replace(ConcurrentMap<Long, LongAdder> counters, Map<Long, Long> values) {
+        values.forEach((id, value) -> reset(counter(counters, id), value));
+        counters.keySet().retainAll(values.keySet());
+    }
+
+    private static Map<Long, Long> toMap(Collection<GroupCountView> rows) {
+        Map<Long, Long> values = new HashMap<>(rows.size() * 4 / 3 + 1);
+        for (GroupCountView row : rows) {
+            values.put(row.getId(), row.getTotal());
+        }
+        return values;
+    }
+
+    // Before the first reconciliation the counters are expected to be empty, so there is nothing to report
+    private void logDrift(String counter, long counted, long actual) {
+        if (reconciledAt != null && counted != actual) {
+            log.warn("Catalog statistics drifted: {} was {} but the database has {}", counter, counted, actual);
+        }
+    }
+}
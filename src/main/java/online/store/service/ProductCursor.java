@@ -0,0 +1,26 @@
+package online.store.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+// The page cursor of the product listings: the last product ID of a page, URL-safe Base64 encoded so
+// clients treat it as opaque. Shared by the JPA and the reactive read path, so their cursors are interchangeable.
+public final class ProductCursor {
+
+    private ProductCursor() {
+    }
+
+    public static String encode(Long productId) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(productId.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static Long decode(String cursor) {
+        try {
+            return Long.valueOf(new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8));
+        } catch (IllegalArgumentException e) {
+            // Covers both malformed Base64 and a payload that is not a number
+            throw new BadRequestException("Invalid page cursor: " + cursor);
+        }
+    }
+}
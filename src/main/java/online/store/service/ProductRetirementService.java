@@ -0,0 +1,259 @@
+package online.store.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.hibernate.search.mapper.orm.Search;
+import org.hibernate.search.mapper.orm.work.SearchIndexingPlan;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.extern.slf4j.Slf4j;
+import online.store.controller.model.OnlineStoreChangeEvent.AggregateType;
+import online.store.controller.model.OnlineStoreChangeEvent.Operation;
+import online.store.controller.model.OnlineStoreProductRetirement;
+import online.store.controller.model.OnlineStoreRetirementJob;
+import online.store.controller.model.OnlineStoreRetirementJob.JobStatus;
+import online.store.dao.OnlineStoreCategoryDao;
+import online.store.dao.OnlineStoreProductDao;
+import online.store.dao.OnlineStoreUserDao;
+import online.store.entity.Product;
+
+@Service
+@Slf4j
+/*
+ * Deletes or archives products together with their users and category links using set-based SQL,
+ * without loading the entities: a handful of statements per chunk of products instead of one per
+ * row. Large retirements (a whole category, or a long list of IDs) run as background jobs, one at
+ * a time, with one transaction per chunk, so locks are held briefly and a failure only rolls back
+ * the current chunk. Clients poll the job for its progress. Every chunk keeps the product cache,
+ * the catalog statistics, the search index and the change events in step, like the other writes.
+ */
+public class ProductRetirementService {
+
+    private final OnlineStoreProductDao onlineStoreProductDao;
+    private final OnlineStoreUserDao onlineStoreUserDao;
+    private final OnlineStoreCategoryDao onlineStoreCategoryDao;
+    private final OnlineStoreCacheService onlineStoreCacheService;
+    private final OnlineStoreStatisticsService onlineStoreStatisticsService;
+    private final ChangeEventOutbox changeEventOutbox;
+    private final TransactionTemplate transactionTemplate;
+    private final int chunkSize; // Products retired per transaction
+    private final ThreadPoolExecutor executor; // Runs the jobs one at a time; a bounded number may wait
+    private final Cache<String, RetirementJob> jobs; // Recent jobs by ID, for progress polling
+
+    @PersistenceContext // Used to purge the retired products from the search index
+    private EntityManager entityManager;
+
+    // How many products, and users with them, one call removed from the live catalog
+    public record RetiredProducts(int products, long users) {
+    }
+
+    @Autowired
+    public ProductRetirementService(OnlineStoreProductDao onlineStoreProductDao, OnlineStoreUserDao onlineStoreUserDao,
+            OnlineStoreCategoryDao onlineStoreCategoryDao, OnlineStoreCacheService onlineStoreCacheService,
+            OnlineStoreStatisticsService onlineStoreStatisticsService, ChangeEventOutbox changeEventOutbox,
+            PlatformTransactionManager transactionManager,
+            @Value("${online-store.retirement.chunk-size:500}") int chunkSize,
+            @Value("${online-store.retirement.max-queued-jobs:10}") int maxQueuedJobs,
+            @Value("${online-store.retirement.status-retention:24h}") Duration statusRetention) {
+        this.onlineStoreProductDao = onlineStoreProductDao;
+        this.onlineStoreUserDao = onlineStoreUserDao;
+        this.onlineStoreCategoryDao = onlineStoreCategoryDao;
+        this.onlineStoreCacheService = onlineStoreCacheService;
+        this.onlineStoreStatisticsService = onlineStoreStatisticsService;
+        this.changeEventOutbox = changeEventOutbox;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.chunkSize = chunkSize;
+        this.executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(maxQueuedJobs), runnable -> new Thread(runnable, "product-retirement"));
+        this.jobs = Caffeine.newBuilder().expireAfterWrite(statusRetention).maximumSize(10_000).build();
+    }
+
+    // Interrupts the running job between chunks; the chunks committed so far stay retired
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        executor.shutdownNow();
+        executor.awaitTermination(30, TimeUnit.SECONDS);
+    }
+
+    /*
+     * Queues a retirement job and returns it right away, PENDING. The category must exist; products
+     * of the list that do not exist are skipped. Throws RejectedExecutionException when too many
+     * jobs are already waiting.
+     */
+    public OnlineStoreRetirementJob startRetirement(OnlineStoreProductRetirement retirement) {
+        Long categoryId = retirement.getCategoryId();
+        List<Long> productIds = retirement.getProductIds();
+        if (Objects.isNull(categoryId) == Objects.isNull(productIds)) {
+            throw new BadRequestException("A retirement needs either a category ID or a list of product IDs.");
+        }
+        if (Objects.nonNull(categoryId) && !onlineStoreCategoryDao.existsByCategoryId(categoryId)) {
+            throw new NoSuchElementException("Category with ID=" + categoryId + " was not found.");
+        }
+
+        RetirementJob job = new RetirementJob(UUID.randomUUID().toString(), categoryId,
+                Objects.isNull(productIds) ? null : productIds.stream().filter(Objects::nonNull).distinct().sorted().toList(),
+                retirement.isArchive());
+        executor.execute(() -> run(job));
+        jobs.put(job.jobId, job);
+        return job.snapshot();
+    }
+
+    // Reports the progress of a job; jobs are forgotten after the status retention period
+    public OnlineStoreRetirementJob retrieveJob(String jobId) {
+        RetirementJob job = jobs.getIfPresent(jobId);
+        if (job == null) {
+            throw new NoSuchElementException("Retirement job with ID=" + jobId + " was not found.");
+        }
+        return job.snapshot();
+    }
+
+    /*
+     * Deletes (or archives) the given products, their users and their category links in the current
+     * transaction, with a fixed number of statements whatever the number of rows. The products are
+     * locked first, so users or category links cannot be added to them while they are being retired.
+     * IDs of products that do not exist are ignored.
+     */
+    @Transactional
+    public RetiredProducts retireProducts(List<Long> productIds, boolean archive) {
+        List<Long> lockedIds = onlineStoreProductDao.lockProductIds(productIds);
+        if (lockedIds.isEmpty()) {
+            return new RetiredProducts(0, 0);
+        }
+
+        // Capture what the catalog statistics lose with the products before they are gone
+        long value = onlineStoreProductDao.findTotalsByProductIdIn(lockedIds).getInventoryValue();
+        long users = onlineStoreUserDao.countByProductIdIn(lockedIds);
+        onlineStoreStatisticsService.recordProductsDeleted(lockedIds, value, users,
+                onlineStoreProductDao.countCategoryLinksByProductIdIn(lockedIds));
+
+        if (archive) {
+            onlineStoreProductDao.archiveByProductIdIn(lockedIds);
+            onlineStoreUserDao.archiveByProductIdIn(lockedIds);
+            onlineStoreProductDao.archiveCategoryLinksByProductIdIn(lockedIds);
+        }
+        onlineStoreProductDao.deleteCategoryLinksByProductIdIn(lockedIds);
+        onlineStoreUserDao.deleteByProductIdIn(lockedIds);
+        onlineStoreProductDao.deleteByProductIdIn(lockedIds);
+
+        // The statements bypass the entities, so the search index has to be told; it is updated on commit
+        SearchIndexingPlan indexingPlan = Search.session(entityManager).indexingPlan();
+        List<ChangeEventOutbox.Change> changes = new ArrayList<>(lockedIds.size());
+        for (Long productId : lockedIds) {
+            indexingPlan.purge(Product.class, productId, null);
+            changes.add(new ChangeEventOutbox.Change(AggregateType.PRODUCT, productId, productId, Operation.DELETED));
+        }
+        onlineStoreCacheService.evictProductsAfterCommit(lockedIds);
+        changeEventOutbox.appendAll(changes);
+
+        return new RetiredProducts(lockedIds.size(), users);
+    }
+
+    private void run(RetirementJob job) {
+        try {
+            job.started();
+            log.info("Retirement job {} started: {} products to {}", job.jobId, job.totalProducts,
+                    job.archive ? "archive" : "delete");
+            if (Objects.nonNull(job.categoryId)) {
+                retireCategory(job);
+            } else {
+                for (int start = 0; start < job.productIds.size(); start += chunkSize) {
+                    retireChunk(job, job.productIds.subList(start, Math.min(start + chunkSize, job.productIds.size())));
+                }
+            }
+            job.finished(JobStatus.COMPLETED, null);
+            log.info("Retirement job {} completed: {} products and {} users retired", job.jobId,
+                    job.retiredProducts.get(), job.retiredUsers.get());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            job.finished(JobStatus.FAILED, "Interrupted by shutdown");
+        } catch (RuntimeException e) {
+            log.error("Retirement job {} failed after {} products", job.jobId, job.retiredProducts.get(), e);
+            job.finished(JobStatus.FAILED, e.toString());
+        }
+    }
+
+    // Walks the category in product ID order, one chunk of its join rows at a time
+    private void retireCategory(RetirementJob job) throws InterruptedException {
+        long afterProductId = 0;
+        List<Long> chunk;
+        do {
+            chunk = onlineStoreProductDao.findProductIdsByCategoryIdAfter(job.categoryId, afterProductId, chunkSize);
+            if (!chunk.isEmpty()) {
+                retireChunk(job, chunk);
+                afterProductId = chunk.get(chunk.size() - 1);
+            }
+        } while (chunk.size() == chunkSize);
+    }
+
+    private void retireChunk(RetirementJob job, List<Long> productIds) throws InterruptedException {
+        if (Thread.interrupted()) {
+            throw new InterruptedException();
+        }
+        RetiredProducts retired = transactionTemplate.execute(status -> retireProducts(productIds, job.archive));
+        job.retiredProducts.addAndGet(retired.products());
+        job.retiredUsers.addAndGet(retired.users());
+    }
+
+    // The mutable state of a job; the job thread updates it and pollers read snapshots of it
+    private final class RetirementJob {
+
+        private final String jobId;
+        private final Long categoryId;
+        private final List<Long> productIds;
+        private final boolean archive;
+        private volatile JobStatus status = JobStatus.PENDING;
+        private volatile long totalProducts;
+        private final AtomicLong retiredProducts = new AtomicLong();
+        private final AtomicLong retiredUsers = new AtomicLong();
+        private volatile Instant startedAt;
+        private volatile Instant finishedAt;
+        private volatile String message;
+
+        private RetirementJob(String jobId, Long categoryId, List<Long> productIds, boolean archive) {
+            this.jobId = jobId;
+            this.categoryId = categoryId;
+            this.productIds = productIds;
+            this.archive = archive;
+        }
+
+        private void started() {
+            totalProducts = Objects.nonNull(categoryId)
+                    ? onlineStoreProductDao.countProductsByCategoryId(categoryId)
+                    : productIds.size();
+            startedAt = Instant.now();
+            status = JobStatus.RUNNING;
+        }
+
+        private void finished(JobStatus finalStatus, String failure) {
+            message = failure;
+            finishedAt = Instant.now();
+            status = finalStatus;
+        }
+
+        private OnlineStoreRetirementJob snapshot() {
+            return new OnlineStoreRetirementJob(jobId, status, archive, totalProducts, retiredProducts.get(),
+                    retiredUsers.get(), startedAt, finishedAt, message);
+        }
+    }
+}
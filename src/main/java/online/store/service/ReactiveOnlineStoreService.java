@@ -0,0 +1,118 @@
+package online.store.service;
+
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import online.store.controller.model.OnlineStoreCategory;
+import online.store.controller.model.OnlineStoreProductData;
+import online.store.controller.model.OnlineStoreProductPage;
+import online.store.controller.model.OnlineStoreProductSummary;
+import online.store.controller.model.OnlineStoreUser;
+import online.store.dao.ReactiveProductDao;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@Service
+@ConditionalOnProperty(prefix = "online-store.reactive", name = "enabled", havingValue = "true")
+/*
+ * The reactive read path: product detail, the catalog listing and category browsing over R2DBC.
+ * No thread waits on the database while a query runs, so the number of reads in flight is bounded
+ * by the connection pool instead of by the request threads. The results are the same DTOs, page
+ * sizes and cursors as OnlineStoreService, and the writes stay with OnlineStoreService and JPA.
+ * This path does not use the product cache.
+ */
+public class ReactiveOnlineStoreService {
+
+    private final ReactiveProductDao reactiveProductDao;
+    private final int defaultPageSize; // Page size used when the client does not ask for one
+    private final int maxPageSize; // Upper bound on the page size a client can ask for
+
+    @Autowired
+    public ReactiveOnlineStoreService(ReactiveProductDao reactiveProductDao,
+            @Value("${online-store.products.default-page-size:50}") int defaultPageSize,
+            @Value("${online-store.products.max-page-size:500}") int maxPageSize) {
+        this.reactiveProductDao = reactiveProductDao;
+        this.defaultPageSize = defaultPageSize;
+        this.maxPageSize = maxPageSize;
+    }
+
+    // The product, its users and its categories; the users and categories are queried concurrently
+    public Mono<OnlineStoreProductData> retrieveProductById(Long productId) {
+        return reactiveProductDao.findById(productId)
+                .switchIfEmpty(Mono.error(() -> new NoSuchElementException("Product with ID=" + productId
+                        + " was not found.")))
+                .flatMap(product -> Mono.zip(
+                        reactiveProductDao.findUsersByProductId(productId).collectList(),
+                        reactiveProductDao.findCategoriesByProductId(productId).collectList(),
+                        (users, categories) -> toProductDetail(product, users, categories)));
+    }
+
+    public Mono<OnlineStoreProductPage> retrieveAllProducts(String cursor, Integer pageSize) {
+        int size = resolvePageSize(pageSize);
+
+        // Ask for one extra row so we know whether another page follows
+        return reactiveProductDao.findPage(afterProductId(cursor), size + 1)
+                .collectList()
+                .map(products -> toProductPage(products, size));
+    }
+
+    public Mono<OnlineStoreProductPage> retrieveProductsByCategory(Long categoryId, String cursor, Integer pageSize) {
+        int size = resolvePageSize(pageSize);
+        long afterProductId = afterProductId(cursor);
+
+        return reactiveProductDao.existsCategoryById(categoryId)
+                .flatMap(exists -> exists
+                        ? reactiveProductDao.findPageByCategoryId(categoryId, afterProductId, size + 1).collectList()
+                        : Mono.error(new NoSuchElementException("Category with ID=" + categoryId + " was not found.")))
+                .map(products -> toProductPage(products, size));
+    }
+
+    // The whole catalog in product ID order; rows are read only as fast as the client consumes them
+    public Flux<OnlineStoreProductSummary> streamAllProducts() {
+        return reactiveProductDao.streamAll();
+    }
+
+    private static OnlineStoreProductData toProductDetail(OnlineStoreProductSummary product,
+            List<OnlineStoreUser> users, List<OnlineStoreCategory> categories) {
+        OnlineStoreProductData productData = new OnlineStoreProductData();
+        productData.setProductId(product.getProductId());
+        productData.setProductName(product.getProductName());
+        productData.setProductDescription(product.getProductDescription());
+        productData.setProductPrice(product.getProductPrice());
+        productData.setProductQuantity(product.getProductQuantity());
+        productData.setUsers(users);
+        productData.setCategories(categories);
+        return productData;
+    }
+
+    // Turn up to size + 1 products into a page; the extra product only signals a next page
+    private static OnlineStoreProductPage toProductPage(List<OnlineStoreProductSummary> products, int size) {
+        boolean hasMore = products.size() > size;
+        List<OnlineStoreProductSummary> page = hasMore ? List.copyOf(products.subList(0, size)) : products;
+        String nextCursor = hasMore ? ProductCursor.encode(page.get(page.size() - 1).getProductId()) : null;
+
+        return new OnlineStoreProductPage(page, nextCursor);
+    }
+
+    // Product IDs start at 1, so seeking past 0 returns the first page
+    private static long afterProductId(String cursor) {
+        return Objects.isNull(cursor) ? 0 : ProductCursor.decode(cursor);
+    }
+
+    // Use the default page size when none is given and clamp the requested one to [1, maxPageSize]
+    private int resolvePageSize(Integer pageSize) {
+        if (Objects.isNull(pageSize)) {
+            return defaultPageSize;
+        }
+        if (pageSize < 1) {
+            throw new BadRequestException("Page size must be at least 1 but was " + pageSize + ".");
+        }
+        return Math.min(pageSize, maxPageSize);
+    }
+}
@@ -0,0 +1,220 @@
+package online.store.service;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BooleanSupplier;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import online.store.controller.model.OnlineStoreUser;
+
+// Append-only local file that makes accepted-but-not-yet-written user registrations survive a crash.
+// Each line is a JSON entry: ACCEPTED when a registration is accepted (fsynced before the client is
+// answered) and DONE once the batcher has written it. On startup the ACCEPTED entries without a DONE
+// entry are replayed; whenever nothing is in flight the file is truncated.
+// Appends are group committed: every caller appends its entry under the lock, then one of them
+// fsyncs on behalf of all entries appended so far while the others wait for that fsync, so
+// concurrent registrations share fsyncs instead of queueing for one each. The lock is a
+// ReentrantLock so waiting virtual threads do not pin their carrier threads.
+class UserRegistrationJournal implements Closeable {
+
+    static final String ACCEPTED = "ACCEPTED";
+    static final String DONE = "DONE";
+
+    // One line of the journal; productId and user are only set on ACCEPTED entries
+    record Entry(String type, String registrationId, Long productId, OnlineStoreUser user) {
+    }
+
+    private final Path path;
+    private final ObjectMapper objectMapper;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition synced = lock.newCondition(); // Signalled whenever an fsync ends
+    private FileChannel channel; // Guarded by lock
+    private long appendedCount; // Entries appended so far, guarded by lock
+    private long syncedCount; // Entries known to be on disk, guarded by lock
+    private boolean syncing; // Whether a caller is running an fsync, guarded by lock
+
+    UserRegistrationJournal(Path path, ObjectMapper objectMapper) throws IOException {
+        this.path = path;
+        this.objectMapper = objectMapper;
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        this.channel = open();
+    }
+
+    // Reads the registrations that were accepted but never written and rewrites the journal to hold just those
+    List<Entry> replay() throws IOException {
+        lock.lock();
+        try {
+            return compact();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private List<Entry> compact() throws IOException {
+        Map<String, Entry> pending = new LinkedHashMap<>();
+
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                Entry entry;
+                try {
+                    entry = objectMapper.readValue(line, Entry.class);
+                } catch (IOException e) {
+                    break; // A torn last line from a crash mid-write; that registration was never acknowledged
+                }
+                if (ACCEPTED.equals(entry.type())) {
+                    pending.put(entry.registrationId(), entry);
+                } else {
+                    pending.remove(entry.registrationId());
+                }
+            }
+        }
+
+        // Compact: replace the journal with one that only holds the pending entries
+        channel.close();
+        Path compacted = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel out = FileChannel.open(compacted, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            for (Entry entry : pending.values()) {
+                write(out, entry);
+            }
+            out.force(true);
+        }
+        Files.move(compacted, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        channel = open();
+
+        return new ArrayList<>(pending.values());
+    }
+
+    // Durably records an accepted registration; returns once the entry is on disk
+    void accepted(String registrationId, Long productId, OnlineStoreUser user) throws IOException {
+        append(List.of(new Entry(ACCEPTED, registrationId, productId, user)));
+    }
+
+    // Records that registrations have been written (or have failed for good) and must not be replayed
+    void done(Collection<String> registrationIds) throws IOException {
+        List<Entry> entries = new ArrayList<>(registrationIds.size());
+        for (String registrationId : registrationIds) {
+            entries.add(new Entry(DONE, registrationId, null, null));
+        }
+        append(entries);
+    }
+
+    // Empties the journal if nothing is in flight, checked while holding the journal lock
+    void truncateIf(BooleanSupplier nothingInFlight) throws IOException {
+        lock.lock();
+        try {
+            if (nothingInFlight.getAsBoolean() && channel.size() > 0) {
+                channel.truncate(0);
+                channel.force(false);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            channel.close();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /*
+     * Appends the entries and returns once they are on disk. The first caller that finds its entries
+     * not yet synced and no fsync running becomes the leader: it fsyncs outside the lock, covering
+     * everything appended up to then, and wakes the others. Entries appended during that fsync are
+     * covered by the next one. If the fsync fails the leader throws and a waiter takes over.
+     */
+    private void append(List<Entry> entries) throws IOException {
+        if (entries.isEmpty()) {
+            return;
+        }
+        byte[][] lines = new byte[entries.size()][];
+        for (int i = 0; i < lines.length; i++) {
+            lines[i] = line(entries.get(i)); // Serialize before taking the lock
+        }
+
+        lock.lock();
+        try {
+            for (byte[] line : lines) {
+                writeFully(channel, line);
+            }
+            appendedCount += lines.length;
+            long mine = appendedCount;
+
+            while (syncedCount < mine) {
+                if (syncing) {
+                    synced.awaitUninterruptibly();
+                    continue;
+                }
+                syncing = true;
+                long covered = appendedCount;
+                FileChannel target = channel;
+                lock.unlock();
+                boolean forced = false;
+                try {
+                    target.force(false);
+                    forced = true;
+                } finally {
+                    lock.lock();
+                    syncing = false;
+                    if (forced) {
+                        syncedCount = Math.max(syncedCount, covered);
+                    }
+                    synced.signalAll();
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private FileChannel open() throws IOException {
+        return FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    private void write(FileChannel target, Entry entry) throws IOException {
+        writeFully(target, line(entry));
+    }
+
+    // One journal line: the entry as JSON and a newline
+    private byte[] line(Entry entry) throws IOException {
+        byte[] json = objectMapper.writeValueAsBytes(entry);
+        byte[] line = new byte[json.length + 1];
+        System.arraycopy(json, 0, line, 0, json.length);
+        line[json.length] = '\n';
+        return line;
+    }
+
+    private static void writeFully(FileChannel target, byte[] line) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(line);
+        while (buffer.hasRemaining()) {
+            target.write(buffer);
+        }
+    }
+}
@@ -0,0 +1,330 @@
+package online.store.service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import online.store.controller.model.OnlineStoreChangeEvent.AggregateType;
+import online.store.controller.model.OnlineStoreChangeEvent.Operation;
+import online.store.controller.model.OnlineStoreUser;
+import online.store.controller.model.OnlineStoreUserRegistration;
+import online.store.controller.model.OnlineStoreUserRegistration.RegistrationStatus;
+import online.store.dao.OnlineStoreProductDao;
+import online.store.dao.OnlineStoreUserDao;
+import online.store.entity.User;
+
+@Service
+@ConditionalOnProperty(prefix = "online-store.user-registration.async", name = "enabled", havingValue = "true")
+@Slf4j
+/*
+ * Write-behind pipeline for user registrations on products. A registration is validated, written to
+ * a local journal and put on a bounded in-memory queue; the caller gets its registration ID right
+ * away. A single background batcher drains the queue and inserts the users in groups, one
+ * transaction and a few JDBC batches per group, without loading or touching Product.users.
+ * When the queue is full new registrations are rejected (503) instead of piling up.
+ * A registration only fails for good when the database rejects it (e.g. its product was deleted);
+ * on any other error, such as a lost connection or a lock timeout, the batch stays queued and in
+ * the journal and is retried with a backoff. Each user records the registration that created it,
+ * so a registration replayed after a crash between the insert and its DONE entry is not inserted twice.
+ */
+public class UserRegistrationService {
+
+    private final OnlineStoreProductDao onlineStoreProductDao;
+    private final OnlineStoreUserDao onlineStoreUserDao;
+    private final OnlineStoreCacheService onlineStoreCacheService;
+    private final OnlineStoreStatisticsService onlineStoreStatisticsService;
+    private final ChangeEventOutbox changeEventOutbox;
+    private final TransactionTemplate transactionTemplate;
+    private final UserRegistrationJournal journal;
+    private final int queueCapacity; // Registrations that may be accepted but not yet written
+    private final int batchSize; // Registrations written per transaction
+
+    private static final long MIN_BACKOFF_MILLIS = 100; // First wait before retrying a batch after an error
+    private static final long MAX_BACKOFF_MILLIS = 30_000; // Longest wait between retries while the database is unavailable
+
+    private final BlockingQueue<UserRegistrationJournal.Entry> queue = new LinkedBlockingQueue<>();
+    private Semaphore capacity; // One permit per free queue slot; the queue itself is unbounded so replays always fit
+    private final Cache<String, OnlineStoreUserRegistration> registrations; // Recent registrations by ID, for status polling
+    private volatile boolean running = true;
+    private Thread batcher;
+
+    @Autowired
+    public UserRegistrationService(OnlineStoreProductDao onlineStoreProductDao, OnlineStoreUserDao onlineStoreUserDao,
+            OnlineStoreCacheService onlineStoreCacheService, OnlineStoreStatisticsService onlineStoreStatisticsService,
+            ChangeEventOutbox changeEventOutbox,
+            PlatformTransactionManager transactionManager,
+            ObjectMapper objectMapper,
+            @Value("${online-store.user-registration.queue-capacity:10000}") int queueCapacity,
+            @Value("${online-store.user-registration.batch-size:500}") int batchSize,
+            @Value("${online-store.user-registration.journal-file:./data/user-registrations.journal}") Path journalFile,
+            @Value("${online-store.user-registration.status-retention:1h}") Duration statusRetention) throws IOException {
+        this.onlineStoreProductDao = onlineStoreProductDao;
+        this.onlineStoreUserDao = onlineStoreUserDao;
+        this.onlineStoreCacheService = onlineStoreCacheService;
+        this.onlineStoreStatisticsService = onlineStoreStatisticsService;
+        this.changeEventOutbox = changeEventOutbox;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.journal = new UserRegistrationJournal(journalFile, objectMapper);
+        this.queueCapacity = queueCapacity;
+        this.batchSize = batchSize;
+        this.registrations = Caffeine.newBuilder().expireAfterWrite(statusRetention).maximumSize(queueCapacity * 10L).build();
+    }
+
+    // Re-queues what the journal holds from before a crash, then starts the batcher
+    @PostConstruct
+    public void start() throws IOException {
+        List<UserRegistrationJournal.Entry> replayed = new ArrayList<>(journal.replay());
+
+        // A crash between the insert and the DONE entry leaves a written registration in the journal
+        List<String> written = new ArrayList<>();
+        if (!replayed.isEmpty()) {
+            Map<String, Long> userIds = new HashMap<>();
+            for (User user : onlineStoreUserDao.findByRegistrationIdIn(
+                    replayed.stream().map(UserRegistrationJournal.Entry::registrationId).toList())) {
+                userIds.put(user.getRegistrationId(), user.getUserId());
+            }
+            replayed.removeIf(entry -> {
+                Long userId = userIds.get(entry.registrationId());
+                if (userId != null) {
+                    complete(entry, userId);
+                    written.add(entry.registrationId());
+                }
+                return userId != null;
+            });
+            journal.done(written);
+        }
+
+        // Replays are admitted even beyond the capacity; the permits may start out negative
+        capacity = new Semaphore(queueCapacity - replayed.size());
+        for (UserRegistrationJournal.Entry entry : replayed) {
+            registrations.put(entry.registrationId(), pending(entry.registrationId(), entry.productId()));
+            queue.add(entry);
+        }
+        if (!replayed.isEmpty() || !written.isEmpty()) {
+            log.info("Replaying {} user registrations from the journal, {} were already written",
+                    replayed.size(), written.size());
+        }
+
+        batcher = new Thread(this::runBatcher, "user-registration-batcher");
+        batcher.start();
+    }
+
+    // Stops the batcher; anything still queued stays in the journal and is replayed on the next start
+    @PreDestroy
+    public void stop() throws InterruptedException, IOException {
+        running = false;
+        batcher.interrupt();
+        batcher.join(TimeUnit.SECONDS.toMillis(30));
+        journal.close();
+    }
+
+    /*
+     * Accepts a registration of a new user for a product. Returns once the registration is durable
+     * in the journal; the user is inserted later by the batcher.
+     * Throws RejectedExecutionException when the queue is full.
+     */
+    public OnlineStoreUserRegistration register(Long productId, OnlineStoreUser user) {
+        if (user.getUserId() != null) {
+            throw new BadRequestException("A registration creates a new user and must not carry a user ID.");
+        }
+        if (!onlineStoreProductDao.existsById(productId)) {
+            throw new NoSuchElementException("Product with ID=" + productId + " was not found.");
+        }
+        if (!capacity.tryAcquire()) {
+            throw new RejectedExecutionException("The user registration queue is full, retry later.");
+        }
+
+        String registrationId = UUID.randomUUID().toString();
+        try {
+            journal.accepted(registrationId, productId, user);
+        } catch (IOException e) {
+            capacity.release();
+            throw new UncheckedIOException("Could not journal user registration", e);
+        }
+
+        OnlineStoreUserRegistration registration = pending(registrationId, productId);
+        registrations.put(registrationId, registration);
+        queue.add(new UserRegistrationJournal.Entry(UserRegistrationJournal.ACCEPTED, registrationId, productId, user));
+        return registration;
+    }
+
+    // Reports where a registration is; registrations are forgotten after the status retention period
+    public OnlineStoreUserRegistration retrieveRegistration(String registrationId) {
+        OnlineStoreUserRegistration registration = registrations.getIfPresent(registrationId);
+        if (registration == null) {
+            throw new NoSuchElementException("User registration with ID=" + registrationId + " was not found.");
+        }
+        return registration;
+    }
+
+    private void runBatcher() {
+        List<UserRegistrationJournal.Entry> batch = new ArrayList<>(batchSize);
+        long backoffMillis = 0;
+
+        while (running) {
+            try {
+                if (batch.isEmpty()) {
+                    UserRegistrationJournal.Entry first = queue.poll(1, TimeUnit.SECONDS);
+                    if (first == null) {
+                        continue;
+                    }
+                    batch.add(first);
+                    queue.drainTo(batch, batchSize - 1);
+                }
+
+                flush(batch);
+                backoffMillis = 0;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException | IOException e) {
+                // The unfinished registrations stay in the batch and in the journal and are retried
+                backoffMillis = Math.min(Math.max(backoffMillis * 2, MIN_BACKOFF_MILLIS), MAX_BACKOFF_MILLIS);
+                log.warn("Failed to write {} user registrations, retrying in {} ms", batch.size(), backoffMillis, e);
+                try {
+                    Thread.sleep(backoffMillis);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    /*
+     * Writes the batch, removing every registration from it once it has COMPLETED or FAILED for good.
+     * When the batch is rejected by the database it is retried one registration at a time, so one bad
+     * registration does not sink the others. Any other error is thrown with the rest of the batch left in it.
+     */
+    private void flush(List<UserRegistrationJournal.Entry> batch) throws IOException {
+        try {
+            List<User> users = transactionTemplate.execute(status -> insertUsers(batch));
+            for (int i = 0; i < batch.size(); i++) {
+                complete(batch.get(i), users.get(i).getUserId());
+            }
+            finish(batch, List.copyOf(batch));
+            return;
+        } catch (RuntimeException e) {
+            if (!isRejection(e)) {
+                throw e;
+            }
+            log.warn("Batch insert of {} user registrations was rejected, retrying one by one: {}", batch.size(),
+                    e.toString());
+        }
+
+        List<UserRegistrationJournal.Entry> finished = new ArrayList<>(batch.size());
+        try {
+            for (UserRegistrationJournal.Entry entry : batch) {
+                try {
+                    List<User> users = transactionTemplate.execute(status -> insertUsers(List.of(entry)));
+                    complete(entry, users.get(0).getUserId());
+                } catch (RuntimeException single) {
+                    if (!isRejection(single)) {
+                        throw single;
+                    }
+                    registrations.put(entry.registrationId(), new OnlineStoreUserRegistration(entry.registrationId(),
+                            entry.productId(), RegistrationStatus.FAILED, null, single.toString()));
+                }
+                finished.add(entry);
+            }
+        } finally {
+            finish(batch, finished);
+        }
+    }
+
+    // Takes the finished registrations out of the batch and the queue capacity, then marks them DONE in the journal
+    private void finish(List<UserRegistrationJournal.Entry> batch, List<UserRegistrationJournal.Entry> finished)
+            throws IOException {
+        if (finished.isEmpty()) {
+            return;
+        }
+        Set<String> registrationIds = new HashSet<>();
+        for (UserRegistrationJournal.Entry entry : finished) {
+            registrationIds.add(entry.registrationId());
+        }
+        batch.removeIf(entry -> registrationIds.contains(entry.registrationId()));
+        capacity.release(finished.size());
+
+        // If this fails the registrations are replayed after a restart and recognized as written
+        journal.done(registrationIds);
+        journal.truncateIf(() -> capacity.availablePermits() >= queueCapacity);
+    }
+
+    // The database rejected the registration itself (a constraint such as the product's foreign key), so retrying cannot help
+    private static boolean isRejection(RuntimeException e) {
+        return e instanceof DataIntegrityViolationException || e instanceof IllegalArgumentException;
+    }
+
+    // Inserts the users of a batch; the product is referenced by ID only, so Product.users is never loaded
+    private List<User> insertUsers(List<UserRegistrationJournal.Entry> batch) {
+        List<User> users = new ArrayList<>(batch.size());
+        Map<Long, Integer> usersByProduct = new HashMap<>();
+
+        for (UserRegistrationJournal.Entry entry : batch) {
+            OnlineStoreUser userData = entry.user();
+            User user = new User();
+            user.setUserEmail(userData.getUserEmail());
+            user.setUserFirstName(userData.getUserFirstName());
+            user.setUserLastName(userData.getUserLastName());
+            user.setUserAddress(userData.getUserAddress());
+            user.setRegistrationId(entry.registrationId());
+            user.setProduct(onlineStoreProductDao.getReferenceById(entry.productId()));
+            users.add(user);
+            usersByProduct.merge(entry.productId(), 1, Integer::sum);
+        }
+
+        List<User> savedUsers = onlineStoreUserDao.saveAll(users);
+
+        // The products gained users: change their versions (ETags) and drop their cached detail views
+        onlineStoreProductDao.incrementVersions(usersByProduct.keySet());
+        onlineStoreCacheService.evictProductsAfterCommit(usersByProduct.keySet());
+        onlineStoreStatisticsService.recordUsersAdded(usersByProduct);
+
+        List<ChangeEventOutbox.Change> changes = new ArrayList<>(savedUsers.size());
+        for (User user : savedUsers) {
+            changes.add(new ChangeEventOutbox.Change(AggregateType.USER, user.getUserId(),
+                    user.getProduct().getProductId(), Operation.CREATED));
+        }
+        changeEventOutbox.appendAll(changes);
+
+        return savedUsers;
+    }
+
+    private void complete(UserRegistrationJournal.Entry entry, Long userId) {
+        registrations.put(entry.registrationId(), new OnlineStoreUserRegistration(entry.registrationId(),
+                entry.productId(), RegistrationStatus.COMPLETED, userId, null));
+    }
+
+    private static OnlineStoreUserRegistration pending(String registrationId, Long productId) {
+        return new OnlineStoreUserRegistration(registrationId, productId, RegistrationStatus.PENDING, null, null);
+    }
+}
@@ -0,0 +1,36 @@
+-- The H2 counterpart of db/migration/mysql, used when the application runs on the embedded H2 database.
+-- The connection URL needs NON_KEYWORDS=USER for the user table.
+
+create table product (
+    product_id bigint generated by default as identity,
+    product_name varchar(255),
+    product_description varchar(255),
+    product_price bigint,
+    product_quantity bigint,
+    primary key (product_id)
+);
+
+create table user (
+    user_id bigint generated by default as identity,
+    user_email varchar(255),
+    user_first_name varchar(255),
+    user_last_name varchar(255),
+    user_address varchar(255),
+    product_id bigint,
+    primary key (user_id),
+    constraint fk_user_product foreign key (product_id) references product (product_id)
+);
+
+create table category (
+    category_id bigint generated by default as identity,
+    category_name varchar(255),
+    primary key (category_id)
+);
+
+create table category_product (
+    product_id bigint not null,
+    category_id bigint not null,
+    primary key (product_id, category_id),
+    constraint fk_category_product_product foreign key (product_id) references product (product_id),
+    constraint fk_category_product_category foreign key (category_id) references category (category_id)
+);
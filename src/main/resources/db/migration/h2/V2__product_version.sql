@@ -0,0 +1,3 @@
+-- The optimistic lock version of a product, also its ETag. Existing products start at version 0.
+
+alter table product add column product_version bigint default 0 not null;
@@ -0,0 +1,8 @@
+-- Product and user IDs come from pooled sequences, like the MySQL script. Each sequence restarts at
+-- MAX(id) + 50 + 1, so its first block of 50 IDs lies above every existing row.
+
+create sequence product_seq start with 1 increment by 50;
+alter sequence product_seq restart with (select coalesce(max(product_id), 0) + 51 from product);
+
+create sequence user_seq start with 1 increment by 50;
+alter sequence user_seq restart with (select coalesce(max(user_id), 0) + 51 from user);
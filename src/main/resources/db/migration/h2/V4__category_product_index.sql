@@ -0,0 +1,3 @@
+-- Serves browsing a category in product ID order and the category membership checks.
+
+create index idx_category_product_category on category_product (category_id, product_id);
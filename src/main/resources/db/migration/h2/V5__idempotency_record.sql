@@ -0,0 +1,10 @@
+-- The H2 counterpart of db/migration/mysql/V5__idempotency_record.sql.
+
+create table idempotency_record (
+    idempotency_key varchar(255) not null,
+    fingerprint varchar(64) not null,
+    response_body clob,
+    created_at timestamp(6) with time zone not null,
+    primary key (idempotency_key)
+);
+create index idx_idempotency_record_created_at on idempotency_record (created_at);
@@ -0,0 +1,12 @@
+-- The H2 counterpart of db/migration/mysql/V6__change_event.sql.
+
+create table change_event (
+    event_id bigint generated by default as identity,
+    aggregate_type varchar(16) not null,
+    aggregate_id bigint not null,
+    product_id bigint,
+    operation varchar(16) not null,
+    occurred_at timestamp(6) with time zone not null,
+    primary key (event_id)
+);
+create index idx_change_event_occurred_at on change_event (occurred_at);
@@ -0,0 +1,5 @@
+-- Users created by an asynchronous registration record its ID. The unique index makes a registration
+-- that is replayed from the journal after a crash unable to create a second user.
+
+alter table user add column registration_id varchar(36);
+create unique index uk_user_registration_id on user (registration_id);
@@ -0,0 +1,38 @@
+-- The schema Hibernate's ddl-auto: update created on MySQL for the entities before Flyway took over:
+-- IDENTITY keys and no product version. A database that already has these tables is baselined at
+-- version 1 (spring.flyway.baseline-on-migrate), skips this script and runs every later one, so
+-- everything added since lives in V2 onwards. Keep db/migration/h2 in step with every change made here.
+
+create table product (
+    product_id bigint not null auto_increment,
+    product_name varchar(255),
+    product_description varchar(255),
+    product_price bigint,
+    product_quantity bigint,
+    primary key (product_id)
+);
+
+create table user (
+    user_id bigint not null auto_increment,
+    user_email varchar(255),
+    user_first_name varchar(255),
+    user_last_name varchar(255),
+    user_address varchar(255),
+    product_id bigint,
+    primary key (user_id),
+    constraint fk_user_product foreign key (product_id) references product (product_id)
+);
+
+create table category (
+    category_id bigint not null auto_increment,
+    category_name varchar(255),
+    primary key (category_id)
+);
+
+create table category_product (
+    product_id bigint not null,
+    category_id bigint not null,
+    primary key (product_id, category_id),
+    constraint fk_category_product_product foreign key (product_id) references product (product_id),
+    constraint fk_category_product_category foreign key (category_id) references category (category_id)
+);
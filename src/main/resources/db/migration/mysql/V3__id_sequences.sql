@@ -0,0 +1,14 @@
+-- Product and user IDs come from pooled generators (allocationSize 50) so inserts can be JDBC batched.
+-- MySQL has no sequences: Hibernate emulates product_seq and user_seq with single-row tables. The pooled
+-- optimizer treats the value it reads as the top of a block of 50 IDs, so each generator starts at
+-- MAX(id) + 50 + 1 and its first block lies above every row already numbered by auto_increment.
+
+create table product_seq (
+    next_val bigint
+);
+insert into product_seq (next_val) select coalesce(max(product_id), 0) + 51 from product;
+
+create table user_seq (
+    next_val bigint
+);
+insert into user_seq (next_val) select coalesce(max(user_id), 0) + 51 from user;
@@ -0,0 +1,10 @@
+-- Idempotency-Key executions shared by the nodes when online-store.idempotency.database-backed is on.
+
+create table idempotency_record (
+    idempotency_key varchar(255) not null,
+    fingerprint varchar(64) not null,
+    response_body longtext,
+    created_at timestamp(6) not null,
+    primary key (idempotency_key)
+);
+create index idx_idempotency_record_created_at on idempotency_record (created_at);
@@ -0,0 +1,12 @@
+-- The change event outbox: one row per write, appended in the transaction of the write.
+
+create table change_event (
+    event_id bigint not null auto_increment,
+    aggregate_type varchar(16) not null,
+    aggregate_id bigint not null,
+    product_id bigint,
+    operation varchar(16) not null,
+    occurred_at timestamp(6) not null,
+    primary key (event_id)
+);
+create index idx_change_event_occurred_at on change_event (occurred_at);
@@ -0,0 +1,35 @@
+-- Archive tables for retired products (ProductRetirementService). Retired rows are moved here so the hot
+-- tables only hold the live catalog. There are no foreign keys: the archived rows no longer exist in the
+-- hot tables, and the archive is only appended to and read by reporting.
+
+create table product_archive (
+    product_id bigint not null,
+    product_name varchar(255),
+    product_description varchar(255),
+    product_price bigint,
+    product_quantity bigint,
+    product_version bigint not null,
+    archived_at timestamp(6) not null,
+    primary key (product_id)
+);
+create index idx_product_archive_archived_at on product_archive (archived_at);
+
+create table user_archive (
+    user_id bigint not null,
+    user_email varchar(255),
+    user_first_name varchar(255),
+    user_last_name varchar(255),
+    user_address varchar(255),
+    product_id bigint,
+    archived_at timestamp(6) not null,
+    primary key (user_id)
+);
+create index idx_user_archive_product on user_archive (product_id);
+
+create table category_product_archive (
+    product_id bigint not null,
+    category_id bigint not null,
+    archived_at timestamp(6) not null,
+    primary key (product_id, category_id)
+);
+create index idx_category_product_archive_category on category_product_archive (category_id, product_id);
@@ -0,0 +1,15 @@
+-- Change events get their consumer offset (stream_position) after they commit, in commit order, from the
+-- single change_event_sequence row (see ChangeEventRelay). Events written before this version keep their
+-- event ID as their position, so the offsets consumers already hold stay valid.
+
+alter table change_event add column stream_position bigint;
+update change_event set stream_position = event_id;
+create unique index idx_change_event_stream_position on change_event (stream_position);
+
+create table change_event_sequence (
+    sequence_id bigint not null,
+    last_position bigint not null,
+    primary key (sequence_id)
+);
+insert into change_event_sequence (sequence_id, last_position)
+    select 1, coalesce(max(event_id), 0) from change_event;
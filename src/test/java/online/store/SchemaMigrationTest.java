@@ -0,0 +1,85 @@
+package online.store;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.util.List;
+import java.util.UUID;
+
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.MigrationInfo;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ScriptUtils;
+
+import online.store.dao.OnlineStoreProductDao;
+import online.store.entity.Product;
+
+// Starts the whole application on the H2 Flyway scripts with ddl-auto: validate, so a migration that does not
+// produce the schema the entities map fails the start. Each test gets a database of its own.
+class SchemaMigrationTest {
+
+    @Test
+    void emptyDatabaseIsMigratedToTheLatestVersion() {
+        try (ConfigurableApplicationContext context = start(newDatabaseUrl())) {
+            Flyway flyway = context.getBean(Flyway.class);
+
+            assertThat(flyway.info().pending()).isEmpty();
+            assertThat(flyway.info().applied()[0].getVersion().getVersion()).isEqualTo("1");
+            assertThat(flyway.info().applied()[0].getType().toString()).isEqualTo("SQL");
+        }
+    }
+
+    @Test
+    void databaseCreatedByDdlAutoIsBaselinedAndMigrated() throws Exception {
+        String url = newDatabaseUrl();
+        try (Connection connection = DriverManager.getConnection(url, "sa", "")) {
+            // V1 is the schema ddl-auto: update created, rows numbered by the IDENTITY columns
+            ScriptUtils.executeSqlScript(connection, new ClassPathResource("db/migration/h2/V1__baseline.sql"));
+            connection.createStatement().executeUpdate("insert into product (product_name, product_description,"
+                    + " product_price, product_quantity) values ('Kettle', 'Boils water', 100, 10)");
+            connection.createStatement().executeUpdate("insert into product (product_id, product_name,"
+                    + " product_description, product_price, product_quantity) values (120, 'Toaster', 'Toasts', 200, 5)");
+            connection.createStatement().executeUpdate("insert into user (user_id, user_email, product_id)"
+                    + " values (40, 'ada@example.com', 120)");
+        }
+
+        try (ConfigurableApplicationContext context = start(url)) {
+            Flyway flyway = context.getBean(Flyway.class);
+            MigrationInfo baseline = flyway.info().applied()[0];
+
+            assertThat(baseline.getVersion().getVersion()).isEqualTo("1");
+            assertThat(baseline.getType().toString()).isEqualTo("BASELINE");
+            assertThat(flyway.info().pending()).isEmpty();
+
+            JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+            List<Long> versions = jdbcTemplate.queryForList("select product_version from product", Long.class);
+            assertThat(versions).containsExactly(0L, 0L);
+
+            Product product = new Product();
+            product.setProductName("Blender");
+            product.setProductDescription("Blends");
+            product.setProductPrice(300L);
+            product.setProductQuantity(3L);
+            Product saved = context.getBean(OnlineStoreProductDao.class).save(product);
+
+            assertThat(saved.getProductId()).isGreaterThan(120L);
+            assertThat(saved.getProductVersion()).isZero();
+        }
+    }
+
+    private static String newDatabaseUrl() {
+        return "jdbc:h2:mem:online_store_migration_" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1;NON_KEYWORDS=USER";
+    }
+
+    private static ConfigurableApplicationContext start(String url) {
+        return new SpringApplicationBuilder(OnlineStoreApplication.class)
+                .profiles("test")
+                .properties("spring.datasource.url=" + url, "server.port=0")
+                .run();
+    }
+}
@@ -0,0 +1,134 @@
+package online.store.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.LongStream;
+
+import org.hibernate.Session;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import online.store.controller.model.OnlineStoreProductSummary;
+import online.store.service.OnlineStoreService;
+
+// GET /online_store/products/export through the full MVC stack, including the async dispatch of the streamed body
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class ProductExportTest {
+
+    private static final long LARGE_CATALOG = 100_000;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private OnlineStoreService onlineStoreService;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @AfterEach
+    void deleteProducts() {
+        jdbcTemplate.update("delete from product");
+    }
+
+    @Test
+    void emptyCatalogIsAnEmptyBody() throws Exception {
+        assertThat(export()).isEmpty();
+    }
+
+    @Test
+    void everyProductIsOneLineInProductIdOrder() throws Exception {
+        for (long productId : new long[] { 3, 1, 2 }) {
+            jdbcTemplate.update("insert into product (product_id, product_name, product_description, product_price,"
+                    + " product_quantity, product_version) values (?, ?, 'Exported', ?, 10, 0)",
+                    productId, "Product " + productId, 100 * productId);
+        }
+
+        String body = export();
+
+        assertThat(body).doesNotEndWith("\n");
+        List<OnlineStoreProductSummary> products = new ArrayList<>();
+        for (String line : body.split("\n", -1)) {
+            products.add(objectMapper.readValue(line, OnlineStoreProductSummary.class));
+        }
+        assertThat(products).extracting(OnlineStoreProductSummary::getProductId).containsExactly(1L, 2L, 3L);
+        assertThat(products.get(1).getProductName()).isEqualTo("Product 2");
+        assertThat(products.get(2).getProductPrice()).isEqualTo(300L);
+    }
+
+    @Test
+    void largeCatalogIsExportedInFull() throws Exception {
+        insertCatalog(LARGE_CATALOG);
+
+        String body = export();
+
+        assertThat(body.lines().count()).isEqualTo(LARGE_CATALOG);
+        assertThat(objectMapper.readValue(body.substring(body.lastIndexOf('\n') + 1), OnlineStoreProductSummary.class)
+                .getProductId()).isEqualTo(LARGE_CATALOG);
+    }
+
+    @Test
+    void persistenceContextDoesNotGrowWhileStreaming() {
+        insertCatalog(LARGE_CATALOG);
+        AtomicLong largestPersistenceContext = new AtomicLong();
+
+        // The consumer runs inside the streaming transaction, so the shared EntityManager is its session
+        long streamed = onlineStoreService.streamAllProducts(product -> largestPersistenceContext.accumulateAndGet(
+                entityManager.unwrap(Session.class).getStatistics().getEntityCount(), Math::max));
+
+        assertThat(streamed).isEqualTo(LARGE_CATALOG);
+        assertThat(largestPersistenceContext).hasValueLessThanOrEqualTo(1);
+    }
+
+    private void insertCatalog(long size) {
+        List<Long> productIds = LongStream.rangeClosed(1, size).boxed().toList();
+        jdbcTemplate.batchUpdate("insert into product (product_id, product_name, product_description, product_price,"
+                + " product_quantity, product_version) values (?, ?, 'Exported', 100, 10, 0)",
+                productIds, 1_000, (statement, productId) -> {
+                    statement.setLong(1, productId);
+                    statement.setString(2, "Product " + productId);
+                });
+    }
+
+    private String export() throws Exception {
+        MvcResult started = mockMvc.perform(get("/online_store/products/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        return mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON))
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+    }
+}
@@ -0,0 +1,153 @@
+package online.store.dao;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.persistence.EntityManagerFactory;
+import online.store.entity.Category;
+import online.store.entity.Product;
+
+// Hits and invalidation of the category, product-categories and category-queries regions. Every step runs
+// in a transaction of its own, so a second read can only be served by the second-level cache, not the session.
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class CategorySecondLevelCacheTest {
+
+    @Autowired
+    private OnlineStoreCategoryDao onlineStoreCategoryDao;
+
+    @Autowired
+    private OnlineStoreProductDao onlineStoreProductDao;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transactionTemplate;
+    private Statistics statistics;
+
+    @BeforeEach
+    void insertCatalog() {
+        jdbcTemplate.update("insert into category (category_id, category_name) values (1, 'Kitchen'), (2, 'Garden')");
+        jdbcTemplate.update("insert into product (product_id, product_name, product_description, product_price,"
+                + " product_quantity, product_version) values (1, 'Kettle', 'Boils water', 100, 10, 0)");
+        jdbcTemplate.update("insert into category_product (product_id, category_id) values (1, 1)");
+
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        entityManagerFactory.getCache().evictAll(); // Rows written through JDBC are unknown to the cache
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @AfterEach
+    void deleteCatalog() {
+        jdbcTemplate.update("delete from category_product");
+        jdbcTemplate.update("delete from category");
+        jdbcTemplate.update("delete from product");
+        entityManagerFactory.getCache().evictAll();
+    }
+
+    @Test
+    void categoryIsLoadedOnceThenServedFromTheCache() {
+        assertThat(categoryName(1L)).isEqualTo("Kitchen");
+        assertThat(categoryName(1L)).isEqualTo("Kitchen");
+
+        assertThat(categoryLoads()).isEqualTo(1);
+        assertThat(regionHits("category")).isEqualTo(1);
+    }
+
+    @Test
+    void renamedCategoryIsReadBackWithoutAStaleName() {
+        categoryName(1L);
+        transactionTemplate.executeWithoutResult(status ->
+                onlineStoreCategoryDao.findById(1L).orElseThrow().setCategoryName("Cookware"));
+
+        assertThat(categoryName(1L)).isEqualTo("Cookware");
+    }
+
+    @Test
+    void productCategoriesAreServedFromTheCollectionCache() {
+        assertThat(categoryIdsOfProduct(1L)).containsExactly(1L);
+        long loads = categoryCollectionLoads();
+        assertThat(categoryIdsOfProduct(1L)).containsExactly(1L);
+
+        assertThat(loads).isEqualTo(1);
+        assertThat(categoryCollectionLoads()).isEqualTo(1);
+        assertThat(regionHits("product-categories")).isGreaterThanOrEqualTo(1);
+    }
+
+    @Test
+    void linkingACategoryInvalidatesTheCachedCollection() {
+        categoryIdsOfProduct(1L);
+        transactionTemplate.executeWithoutResult(status -> {
+            Product product = onlineStoreProductDao.findById(1L).orElseThrow();
+            Category garden = onlineStoreCategoryDao.findById(2L).orElseThrow();
+            product.getCategories().add(garden);
+            garden.getProducts().add(product);
+        });
+
+        assertThat(categoryIdsOfProduct(1L)).containsExactlyInAnyOrder(1L, 2L);
+    }
+
+    @Test
+    void cachedLinkQueryIsInvalidatedByANativeLinkDelete() {
+        assertThat(countProductLinks(1L, 1L)).isEqualTo(1);
+        assertThat(countProductLinks(1L, 1L)).isEqualTo(1);
+        assertThat(statistics.getQueryCacheHitCount()).isEqualTo(1);
+
+        // The native delete declares category_product as its query space, which expires the cached count
+        transactionTemplate.executeWithoutResult(status ->
+                onlineStoreProductDao.deleteCategoryLinksByProductIdIn(List.of(1L)));
+
+        assertThat(countProductLinks(1L, 1L)).isZero();
+    }
+
+    private String categoryName(Long categoryId) {
+        return transactionTemplate.execute(status ->
+                onlineStoreCategoryDao.findById(categoryId).orElseThrow().getCategoryName());
+    }
+
+    private List<Long> categoryIdsOfProduct(Long productId) {
+        return transactionTemplate.execute(status -> onlineStoreProductDao.findById(productId).orElseThrow()
+                .getCategories().stream().map(Category::getCategoryId).toList());
+    }
+
+    private long countProductLinks(Long categoryId, Long productId) {
+        return transactionTemplate.execute(status -> onlineStoreCategoryDao.countProductLinks(categoryId, productId));
+    }
+
+    private long categoryLoads() {
+        return statistics.getEntityStatistics(Category.class.getName()).getLoadCount();
+    }
+
+    private long categoryCollectionLoads() {
+        return statistics.getCollectionStatistics(Product.class.getName() + ".categories").getLoadCount();
+    }
+
+    private long regionHits(String region) {
+        return statistics.getDomainDataRegionStatistics(region).getHitCount();
+    }
+}
@@ -0,0 +1,86 @@
+package online.store.datasource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+// The routing hint follows async work onto its worker thread and never leaks past it; a replica read is
+// remembered for the rest of its transaction only
+class ReplicaRoutingContextTest {
+
+    @AfterEach
+    void clear() {
+        ReplicaRoutingContext.clear();
+    }
+
+    @Test
+    void hintCapturedOnTheRequestThreadAppliesOnTheWorker() {
+        ReplicaRoutingContext.pinToPrimary();
+        boolean pinned = ReplicaRoutingContext.isPinnedToPrimary();
+
+        AtomicBoolean seenByWorker = new AtomicBoolean();
+        AtomicBoolean leftOnWorker = new AtomicBoolean(true);
+        CompletableFuture.runAsync(() -> {
+            ReplicaRoutingContext.runWith(pinned, () -> seenByWorker.set(ReplicaRoutingContext.isPinnedToPrimary()));
+            leftOnWorker.set(ReplicaRoutingContext.isPinnedToPrimary());
+        }).join();
+
+        assertThat(seenByWorker).isTrue();
+        assertThat(leftOnWorker).isFalse();
+    }
+
+    @Test
+    void unpinnedRequestIsNotPinnedByAStaleHint() {
+        ReplicaRoutingContext.pinToPrimary(); // Left over on this thread, e.g. by an earlier task
+
+        AtomicBoolean seen = new AtomicBoolean(true);
+        ReplicaRoutingContext.runWith(false, () -> seen.set(ReplicaRoutingContext.isPinnedToPrimary()));
+
+        assertThat(seen).isFalse();
+        assertThat(ReplicaRoutingContext.isPinnedToPrimary()).isTrue();
+    }
+
+    @Test
+    void hintIsRestoredWhenTheTaskFails() {
+        assertThatThrownBy(() -> ReplicaRoutingContext.runWith(true, () -> {
+            throw new IOException("Client went away");
+        })).isInstanceOf(IOException.class);
+
+        assertThat(ReplicaRoutingContext.isPinnedToPrimary()).isFalse();
+    }
+
+    @Test
+    void replicaReadIsRememberedUntilTheTransactionCompletes() {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            assertThat(ReplicaRoutingContext.isReadFromReplica()).isFalse();
+
+            ReplicaRoutingContext.markReadFromReplica();
+            ReplicaRoutingContext.markReadFromReplica(); // A second replica connection in the same transaction
+
+            assertThat(ReplicaRoutingContext.isReadFromReplica()).isTrue();
+            TransactionSynchronizationUtils.invokeAfterCompletion(TransactionSynchronizationManager.getSynchronizations(),
+                    TransactionSynchronization.STATUS_COMMITTED);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertThat(ReplicaRoutingContext.isReadFromReplica()).isFalse();
+    }
+
+    @Test
+    void replicaReadOutsideOfATransactionIsNotRemembered() {
+        ReplicaRoutingContext.markReadFromReplica();
+
+        assertThat(ReplicaRoutingContext.isReadFromReplica()).isFalse();
+    }
+}
@@ -0,0 +1,128 @@
+package online.store.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+// Reservations against the real conditional UPDATE: many threads buying the same product never take more than its stock
+@SpringBootTest
+@ActiveProfiles("test")
+class OnlineStoreInventoryServiceTest {
+
+    private static final long PRODUCT_ID = 1;
+    private static final long STOCK = 100;
+    private static final int THREADS = 16;
+    private static final int RESERVATIONS = 400; // Four times the stock, so most reservations have to fail
+
+    @Autowired
+    private OnlineStoreInventoryService onlineStoreInventoryService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void insertProduct() {
+        jdbcTemplate.update("insert into product (product_id, product_name, product_description, product_price,"
+                + " product_quantity, product_version) values (?, 'Hot product', 'Sold out in minutes', 1000, ?, 0)",
+                PRODUCT_ID, STOCK);
+    }
+
+    @AfterEach
+    void deleteProduct() {
+        jdbcTemplate.update("delete from product where product_id = ?", PRODUCT_ID);
+    }
+
+    @Test
+    void concurrentReservationsNeverOversell() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Boolean>> results = new ArrayList<>(RESERVATIONS);
+        try {
+            Callable<Boolean> reservation = () -> {
+                start.await();
+                try {
+                    onlineStoreInventoryService.reserveProductQuantity(PRODUCT_ID, 1L);
+                    return true;
+                } catch (InsufficientStockException e) {
+                    return false;
+                }
+            };
+            for (int i = 0; i < RESERVATIONS; i++) {
+                results.add(executor.submit(reservation));
+            }
+            start.countDown();
+
+            int reserved = 0;
+            for (Future<Boolean> result : results) {
+                if (result.get()) {
+                    reserved++;
+                }
+            }
+
+            assertThat(reserved).isEqualTo(STOCK);
+            assertThat(quantity()).isZero();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void concurrentMultiUnitReservationsNeverOversell() throws InterruptedException, ExecutionException {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<Long>> results = new ArrayList<>();
+        try {
+            // 3 does not divide the stock, so whether the last units sell depends on the interleaving
+            for (int i = 0; i < RESERVATIONS; i++) {
+                long quantity = i % 2 == 0 ? 3 : 1;
+                results.add(executor.submit(() -> {
+                    try {
+                        return onlineStoreInventoryService.reserveProductQuantity(PRODUCT_ID, quantity)
+                                .getQuantity();
+                    } catch (InsufficientStockException e) {
+                        return 0L;
+                    }
+                }));
+            }
+
+            long reserved = 0;
+            for (Future<Long> result : results) {
+                reserved += result.get();
+            }
+
+            assertThat(quantity()).isNotNegative();
+            assertThat(reserved + quantity()).isEqualTo(STOCK);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void reservationBeyondStockChangesNothing() {
+        assertThatThrownBy(() -> onlineStoreInventoryService.reserveProductQuantity(PRODUCT_ID, STOCK + 1))
+                .isInstanceOf(InsufficientStockException.class)
+                .hasMessageContaining("only " + STOCK + " available");
+
+        assertThat(quantity()).isEqualTo(STOCK);
+    }
+
+    private long quantity() {
+        return jdbcTemplate.queryForObject("select product_quantity from product where product_id = ?", Long.class,
+                PRODUCT_ID);
+    }
+}
@@ -0,0 +1,100 @@
+package online.store.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import jakarta.persistence.EntityManagerFactory;
+import online.store.controller.model.OnlineStoreProductData;
+
+// Product detail costs a fixed number of statements however many users and categories the product has
+@SpringBootTest
+@ActiveProfiles("test")
+class ProductDetailQueryCountTest {
+
+    @Autowired
+    private OnlineStoreService onlineStoreService;
+
+    @Autowired
+    private OnlineStoreCacheService onlineStoreCacheService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void insertProducts() {
+        insertProduct(1, 1);
+        insertProduct(2, 20);
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @AfterEach
+    void deleteProducts() {
+        jdbcTemplate.update("delete from category_product");
+        jdbcTemplate.update("delete from category");
+        jdbcTemplate.update("delete from user");
+        jdbcTemplate.update("delete from product");
+        onlineStoreCacheService.evictProduct(1L);
+        onlineStoreCacheService.evictProduct(2L);
+        entityManagerFactory.getCache().evictAll();
+    }
+
+    @Test
+    void coldReadCostsTheSameWhateverTheFanOut() {
+        long small = statementsToRead(1L, true);
+        long large = statementsToRead(2L, true);
+
+        assertThat(small).isLessThanOrEqualTo(2); // The product with its users, then its categories
+        assertThat(large).isEqualTo(small);
+    }
+
+    @Test
+    void readWithCachedCategoriesIsOneStatement() {
+        statementsToRead(2L, true); // Puts the product's categories into the second-level cache
+
+        assertThat(statementsToRead(2L, false)).isEqualTo(1);
+
+        OnlineStoreProductData product = onlineStoreService.retrieveProductById(2L);
+        assertThat(product.getUsers()).hasSize(20);
+        assertThat(product.getCategories()).hasSize(20);
+    }
+
+    // Reads the product past the detail cache and counts the JDBC statements it took
+    private long statementsToRead(Long productId, boolean coldCache) {
+        onlineStoreCacheService.evictProduct(productId);
+        if (coldCache) {
+            entityManagerFactory.getCache().evictAll();
+        }
+        statistics.clear();
+        onlineStoreService.retrieveProductById(productId);
+        return statistics.getPrepareStatementCount();
+    }
+
+    // A product with the given number of users and categories, each category its own
+    private void insertProduct(long productId, int fanOut) {
+        jdbcTemplate.update("insert into product (product_id, product_name, product_description, product_price,"
+                + " product_quantity, product_version) values (?, ?, 'Detailed', 100, 10, 0)",
+                productId, "Product " + productId);
+        for (int i = 0; i < fanOut; i++) {
+            long id = productId * 100 + i;
+            jdbcTemplate.update("insert into user (user_id, user_email, user_first_name, user_last_name,"
+                    + " user_address, product_id) values (?, ?, 'First', 'Last', 'Main Street', ?)",
+                    id, "user" + id + "@example.com", productId);
+            jdbcTemplate.update("insert into category (category_id, category_name) values (?, ?)", id, "Category " + id);
+            jdbcTemplate.update("insert into category_product (product_id, category_id) values (?, ?)", productId, id);
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package online.store.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import online.store.controller.model.OnlineStoreProductPage;
+import online.store.controller.model.OnlineStoreProductSummary;
+
+// Edge cases of the keyset pagination of the product listing and of category browsing
+@SpringBootTest
+@ActiveProfiles("test")
+class ProductKeysetPagingTest {
+
+    @Autowired
+    private OnlineStoreService onlineStoreService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void deleteCatalog() {
+        jdbcTemplate.update("delete from category_product");
+        jdbcTemplate.update("delete from category");
+        jdbcTemplate.update("delete from product");
+    }
+
+    @Test
+    void emptyCatalogIsOneEmptyLastPage() {
+        OnlineStoreProductPage page = onlineStoreService.retrieveAllProducts(null, 2);
+
+        assertThat(page.getProducts()).isEmpty();
+        assertThat(page.getNextCursor()).isNull();
+    }
+
+    @Test
+    void fullLastPageHasNoNextCursor() {
+        insertProducts(1, 2, 3, 4);
+
+        OnlineStoreProductPage first = onlineStoreService.retrieveAllProducts(null, 2);
+        OnlineStoreProductPage last = onlineStoreService.retrieveAllProducts(first.getNextCursor(), 2);
+
+        assertThat(productIds(first)).containsExactly(1L, 2L);
+        assertThat(first.getNextCursor()).isNotNull();
+        assertThat(productIds(last)).containsExactly(3L, 4L);
+        assertThat(last.getNextCursor()).isNull();
+    }
+
+    @Test
+    void walkingTheCursorsVisitsEveryProductOnceAcrossGaps() {
+        insertProducts(2, 3, 5, 8, 13, 21, 34);
+
+        List<Long> visited = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            OnlineStoreProductPage page = onlineStoreService.retrieveAllProducts(cursor, 3);
+            visited.addAll(productIds(page));
+            cursor = page.getNextCursor();
+            pages++;
+        } while (cursor != null);
+
+        assertThat(visited).containsExactly(2L, 3L, 5L, 8L, 13L, 21L, 34L);
+        assertThat(pages).isEqualTo(3);
+    }
+
+    @Test
+    void cursorPastTheEndIsAnEmptyLastPage() {
+        insertProducts(1, 2, 3);
+
+        OnlineStoreProductPage page = onlineStoreService.retrieveAllProducts(ProductCursor.encode(1_000L), 2);
+
+        assertThat(page.getProducts()).isEmpty();
+        assertThat(page.getNextCursor()).isNull();
+    }
+
+    @Test
+    void cursorOfADeletedProductStillSeeksPastIt() {
+        insertProducts(1, 2, 3, 4);
+        String cursor = onlineStoreService.retrieveAllProducts(null, 2).getNextCursor();
+        jdbcTemplate.update("delete from product where product_id = 2");
+
+        assertThat(productIds(onlineStoreService.retrieveAllProducts(cursor, 2))).containsExactly(3L, 4L);
+    }
+
+    @Test
+    void malformedCursorAndPageSizeAreRejected() {
+        assertThatThrownBy(() -> onlineStoreService.retrieveAllProducts("not a cursor!", 2))
+                .isInstanceOf(BadRequestException.class);
+        assertThatThrownBy(() -> onlineStoreService.retrieveAllProducts(null, 0))
+                .isInstanceOf(BadRequestException.class);
+    }
+
+    @Test
+    void categoryPagesOnlyHoldTheCategorysProducts() {
+        insertProducts(1, 2, 3, 4, 5);
+        jdbcTemplate.update("insert into category (category_id, category_name) values (1, 'Even')");
+        jdbcTemplate.update("insert into category_product (product_id, category_id) values (2, 1), (4, 1)");
+
+        OnlineStoreProductPage first = onlineStoreService.retrieveProductsByCategory(1L, null, 1);
+        OnlineStoreProductPage last = onlineStoreService.retrieveProductsByCategory(1L, first.getNextCursor(), 1);
+        OnlineStoreProductPage pastTheEnd = onlineStoreService.retrieveProductsByCategory(1L,
+                ProductCursor.encode(4L), 1);
+
+        assertThat(productIds(first)).containsExactly(2L);
+        assertThat(productIds(last)).containsExactly(4L);
+        assertThat(last.getNextCursor()).isNull();
+        assertThat(pastTheEnd.getProducts()).isEmpty();
+        assertThat(pastTheEnd.getNextCursor()).isNull();
+    }
+
+    private void insertProducts(long... productIds) {
+        for (long productId : productIds) {
+            jdbcTemplate.update("insert into product (product_id, product_name, product_description, product_price,"
+                    + " product_quantity, product_version) values (?, ?, 'Paged', 100, 10, 0)",
+                    productId, "Product " + productId);
+        }
+    }
+
+    private static List<Long> productIds(OnlineStoreProductPage page) {
+        return page.getProducts().stream().map(OnlineStoreProductSummary::getProductId).toList();
+    }
+}